@@ -0,0 +1,105 @@
+package com.espinozameridaal.securityexnotes.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//The binary layout shared by AuthAuditLog (writer) and AuditLogReader.
+//
+//Segment header (8 bytes):
+//  int   MAGIC ("AUDT")
+//  short VERSION
+//  short reserved (0)
+//
+//Record (13 bytes + strings), all numbers big endian:
+//  byte  event type code (never 0, see AuthEventType)
+//  long  timestamp, epoch millis
+//  short username length in bytes, followed by the UTF-8 username
+//  short detail length in bytes, followed by the UTF-8 detail
+//
+//A missing username/detail is written as length 0 and read back as null.
+final class AuditLogFormat {
+
+    static final int MAGIC = 0x41554454;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_OVERHEAD = 1 + 8 + 2 + 2;
+
+//    Usernames and details are truncated to this many bytes so one record can never
+//    be larger than a segment and a hostile username can't blow up the log.
+    static final int MAX_STRING_BYTES = 512;
+
+//    The largest record there can be; a segment must hold at least the header and one of these.
+    static final int MAX_RECORD_SIZE = RECORD_OVERHEAD + 2 * MAX_STRING_BYTES;
+
+    static final String FILE_PREFIX = "auth-audit-";
+    static final String FILE_SUFFIX = ".bin";
+
+    private AuditLogFormat() {
+    }
+
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) 0);
+    }
+
+    static byte[] encodeString(String value) {
+        if (value == null || value.isEmpty()) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_STRING_BYTES) {
+            return bytes;
+        }
+//        Cut before the character that would be split: back up while the first byte left out is a
+//        UTF-8 continuation byte (10xxxxxx), so the kept bytes always decode to whole characters.
+        int length = MAX_STRING_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] truncated = new byte[length];
+        System.arraycopy(bytes, 0, truncated, 0, length);
+        return truncated;
+    }
+
+    static void writeRecord(ByteBuffer buffer, AuthEvent event, byte[] username, byte[] detail) {
+        buffer.put(event.type().getCode());
+        buffer.putLong(event.timestamp());
+        buffer.putShort((short) username.length);
+        buffer.put(username);
+        buffer.putShort((short) detail.length);
+        buffer.put(detail);
+    }
+
+//    Reads the record at the buffer's position, or returns null at the end of the written
+//    data (a 0 type byte, an unknown type, or a record cut short by the end of the file).
+    static AuthEvent readRecord(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_OVERHEAD) {
+            return null;
+        }
+        AuthEventType type = AuthEventType.fromCode(buffer.get());
+        if (type == null) {
+            return null;
+        }
+        long timestamp = buffer.getLong();
+        String username = readString(buffer);
+        if (username == null || buffer.remaining() < 2) {
+            return null;
+        }
+        String detail = readString(buffer);
+        if (detail == null) {
+            return null;
+        }
+        return new AuthEvent(type, timestamp, username.isEmpty() ? null : username, detail.isEmpty() ? null : detail);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length > buffer.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,86 @@
+package com.espinozameridaal.securityexnotes.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+//Command line tool to dump the binary audit log written by AuthAuditLog.
+//
+//Usage: java -cp <app classpath> com.espinozameridaal.securityexnotes.audit.AuditLogReader [path]
+//
+//path: a single segment file or the audit directory (default "audit").
+// For a directory all segments are printed oldest first, one tab separated line per event:
+// <ISO timestamp>  <event type>  <username>  <detail>
+//
+//Segments in a directory that are not readable audit segments (e.g. the 0-byte file a crash between
+// creating and mapping a segment leaves behind) are skipped and listed on stderr, so one broken file
+// does not hide all the others.
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "audit");
+        List<String> skipped = read(path, event -> System.out.println(
+                Instant.ofEpochMilli(event.timestamp()) + "\t"
+                        + event.type() + "\t"
+                        + (event.username() == null ? "-" : event.username()) + "\t"
+                        + (event.detail() == null ? "-" : event.detail())));
+        for (String problem : skipped) {
+            System.err.println("skipped " + problem);
+        }
+    }
+
+//    Reads every event in a segment file, or in all segments of a directory in time order.
+//    A single file that is not a valid segment is an IOException. In a directory invalid segments are
+//    skipped instead; the returned list describes them ("<file>: <reason>"), empty when all were read.
+    public static List<String> read(Path path, Consumer<AuthEvent> consumer) throws IOException {
+        if (!Files.isDirectory(path)) {
+            readSegment(path, consumer);
+            return List.of();
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(path)) {
+            files = listing.filter(AuthAuditLog::isSegment).sorted().toList();
+        }
+        List<String> skipped = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                readSegment(file, consumer);
+            } catch (IOException e) {
+                skipped.add(file.getFileName() + ": " + e.getMessage());
+            }
+        }
+        return skipped;
+    }
+
+    private static void readSegment(Path file, Consumer<AuthEvent> consumer) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < AuditLogFormat.HEADER_SIZE || buffer.getInt() != AuditLogFormat.MAGIC) {
+            throw new IOException(buffer.limit() == 0 ? "Empty file" : "Not an auth audit segment");
+        }
+        short version = buffer.getShort();
+        if (version != AuditLogFormat.VERSION) {
+            throw new IOException("Unsupported audit segment version " + version);
+        }
+        buffer.getShort();
+
+        AuthEvent event;
+        while ((event = AuditLogFormat.readRecord(buffer)) != null) {
+            consumer.accept(event);
+        }
+    }
+}
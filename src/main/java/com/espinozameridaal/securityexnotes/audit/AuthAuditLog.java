@@ -0,0 +1,247 @@
+package com.espinozameridaal.securityexnotes.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+//AuthAuditLog keeps a durable trail of authentication outcomes (logins, failures,
+// rejected tokens, registrations) without slowing down the request that produced them.
+//
+//Request threads only call record(...), which puts the event on a lock-free queue and returns.
+//A single background thread drains the queue in batches and appends the records to a
+// memory-mapped segment file (format described in AuditLogFormat).
+//
+//Back pressure: the queue is bounded by audit.queue-capacity. When it is full the event is
+// dropped and counted (see getDroppedCount()) - a slow disk must never block a login. Events that
+// could not be written (I/O errors) are counted as dropped as well.
+//
+//Rotation: when a segment is full a new one is started, and only the newest
+// audit.max-segments files are kept in audit.directory.
+@Component
+public class AuthAuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthAuditLog.class);
+
+    private final ConcurrentLinkedQueue<AuthEvent> queue = new ConcurrentLinkedQueue<>();
+//    pending: number of events currently in the queue. ConcurrentLinkedQueue.size() walks the
+//    whole queue, so the bound is enforced with this counter instead.
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    @Value("${audit.directory:audit}")
+    private String directory;
+
+    @Value("${audit.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${audit.batch-size:512}")
+    private int batchSize;
+
+    @Value("${audit.segment-size:16777216}")
+    private int segmentSize;
+
+    @Value("${audit.max-segments:8}")
+    private int maxSegments;
+
+    @Value("${audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private Path dir;
+    private Thread writer;
+    private volatile boolean running;
+
+//    Only touched by the writer thread (and by stop() once the writer has exited).
+    private final Deque<Path> segments = new ArrayDeque<>();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+
+    @PostConstruct
+    public void start() throws IOException {
+        int minSegmentSize = AuditLogFormat.HEADER_SIZE + AuditLogFormat.MAX_RECORD_SIZE;
+        if (segmentSize < minSegmentSize) {
+            throw new IllegalArgumentException("audit.segment-size must be at least " + minSegmentSize
+                    + " bytes (header + largest record), was " + segmentSize);
+        }
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        try (Stream<Path> existing = Files.list(dir)) {
+            existing.filter(AuthAuditLog::isSegment).sorted().forEach(segments::addLast);
+        }
+        openSegment();
+
+        running = true;
+        writer = new Thread(this::drainLoop, "auth-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+//    Called from request threads. Never blocks and never throws.
+    public void record(AuthEventType type, String username, String detail) {
+        if (pending.incrementAndGet() > queueCapacity) {
+            pending.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(new AuthEvent(type, System.currentTimeMillis(), username, detail));
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                if (drainBatch() == 0) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                }
+            } catch (RuntimeException | IOException e) {
+//                Keep the writer alive: losing one event is better than losing the audit log.
+                log.error("Failed to write auth audit batch", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+            }
+        }
+    }
+
+//    Writes up to batchSize events and forces them to disk once for the whole batch.
+//    Events only count as written once the force succeeded. If a write or the force fails, the
+//    events of this batch count as dropped (they may or may not have reached the disk) and the rest
+//    stay queued for the next batch.
+    private int drainBatch() throws IOException {
+        int count = 0;
+        boolean forced = false;
+        AuthEvent event;
+        try {
+            while (count < batchSize && (event = queue.poll()) != null) {
+                pending.decrementAndGet();
+                count++;
+                append(event);
+            }
+            if (count > 0) {
+                segment.force();
+            }
+            forced = true;
+        } finally {
+            (forced ? written : dropped).add(count);
+        }
+        return count;
+    }
+
+    private void append(AuthEvent event) throws IOException {
+        byte[] username = AuditLogFormat.encodeString(event.username());
+        byte[] detail = AuditLogFormat.encodeString(event.detail());
+        int size = AuditLogFormat.RECORD_OVERHEAD + username.length + detail.length;
+        if (segment.remaining() < size) {
+            rotate();
+        }
+        AuditLogFormat.writeRecord(segment, event, username, detail);
+    }
+
+    private void rotate() throws IOException {
+        segment.force();
+        channel.close();
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        Path file = nextSegmentPath();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            AuditLogFormat.writeHeader(segment);
+        } catch (RuntimeException | IOException e) {
+//            Don't leave a file without a header behind (AuditLogReader would have to skip it).
+            channel.close();
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        segments.addLast(file);
+
+        while (segments.size() > maxSegments) {
+            Path oldest = segments.removeFirst();
+            try {
+                Files.deleteIfExists(oldest);
+            } catch (IOException e) {
+                log.warn("Could not delete old audit segment {}", oldest, e);
+            }
+        }
+    }
+
+//    Segment names carry their creation time, zero padded so that name order is time order.
+//    Stamps only ever increase (several rotations can happen within one millisecond): reusing the
+//    stamp of an already deleted segment would put the new segment before the older ones.
+    private Path nextSegmentPath() {
+        long stamp = System.currentTimeMillis();
+        if (!segments.isEmpty()) {
+            stamp = Math.max(stamp, stampOf(segments.peekLast()) + 1);
+        }
+        Path file;
+        while (Files.exists(file = dir.resolve(String.format("%s%013d%s", AuditLogFormat.FILE_PREFIX, stamp, AuditLogFormat.FILE_SUFFIX)))) {
+            stamp++;
+        }
+        return file;
+    }
+
+    private static long stampOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(AuditLogFormat.FILE_PREFIX.length(), name.length() - AuditLogFormat.FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(AuditLogFormat.FILE_PREFIX) && name.endsWith(AuditLogFormat.FILE_SUFFIX);
+    }
+
+//    On shutdown the writer is stopped and whatever is still queued is written out.
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+//            Only drain from this thread once the writer is really gone, the segment isn't thread safe.
+            if (!writer.isAlive()) {
+                while (drainBatch() > 0) {
+                    // keep draining until the queue is empty
+                }
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (dropped.sum() > 0) {
+            log.warn("Auth audit log dropped {} events (queue full or write errors)", dropped.sum());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.espinozameridaal.securityexnotes.audit;
+
+//One audit record.
+//
+//timestamp: epoch milliseconds, taken on the request thread when the event happened
+// (not when the background writer got around to writing it).
+//username: the username the request claimed, may be null (e.g. an unparseable token).
+//detail: a short free-form reason, may be null.
+public record AuthEvent(AuthEventType type, long timestamp, String username, String detail) {
+}
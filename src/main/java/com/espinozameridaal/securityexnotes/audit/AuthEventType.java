@@ -0,0 +1,41 @@
+package com.espinozameridaal.securityexnotes.audit;
+
+//The kinds of authentication outcomes that end up in the audit log.
+//
+//code: The single byte written to disk for each record. Codes start at 1 on purpose:
+// a segment file is memory mapped and zero filled, so a 0 byte marks the end of the
+// written records. Never reuse or renumber a code, old segments would be read wrongly.
+public enum AuthEventType {
+    LOGIN_SUCCESS((byte) 1),
+    LOGIN_FAILURE((byte) 2),
+    USER_NOT_FOUND((byte) 3),
+    TOKEN_REJECTED((byte) 4),
+    REGISTERED((byte) 5);
+
+    private static final AuthEventType[] BY_CODE = new AuthEventType[8];
+
+    static {
+        for (AuthEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    AuthEventType(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+//    Returns null for unknown codes so the reader can stop at the end of a segment
+//    (or at a record written by a newer version) instead of throwing.
+    public static AuthEventType fromCode(byte code) {
+        if (code <= 0 || code >= BY_CODE.length) {
+            return null;
+        }
+        return BY_CODE[code];
+    }
+}
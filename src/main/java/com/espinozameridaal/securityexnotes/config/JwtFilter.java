@@ -1,17 +1,21 @@
 package com.espinozameridaal.securityexnotes.config;
 
+import com.espinozameridaal.securityexnotes.audit.AuthAuditLog;
+import com.espinozameridaal.securityexnotes.audit.AuthEventType;
+import com.espinozameridaal.securityexnotes.profiling.JwtFilterEvent;
 import com.espinozameridaal.securityexnotes.service.JWTService;
-import com.espinozameridaal.securityexnotes.service.MyUserDetailsService;
+import com.espinozameridaal.securityexnotes.service.UserPrincipalCache;
+import com.espinozameridaal.securityexnotes.service.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.context.ApplicationContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -20,6 +24,8 @@ import java.io.IOException;
 //@Component: Marks this class as a Spring-managed bean,
 // so it can be automatically detected and injected where needed.
 @Component
+//@ConditionalOnWebApplication: servlet stack only, the reactive stack uses ReactiveJwtFilter.
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 
 public class JwtFilter extends OncePerRequestFilter {
 
@@ -28,29 +34,62 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private JWTService jwtService;
 
-//    @Autowired ApplicationContext: The ApplicationContext is used to retrieve beans from the Spring container dynamically.
-//    In this case, it’s used to fetch the MyUserDetailsService to load user details for authentication.
+//    @Autowired UserPrincipalCache: Hands out immutable, shared principals (and their authenticated token)
+//    so a request doesn't hit the database or allocate a new principal/token every time.
 
     @Autowired
-    ApplicationContext context;
+    private UserPrincipalCache principalCache;
+
+//    @Autowired AuthAuditLog: Rejected tokens are recorded in the audit log (asynchronously, so the request isn't slowed down).
+    @Autowired
+    private AuthAuditLog auditLog;
 
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)throws ServletException, IOException {
 
+//        JwtFilterEvent: times this filter's own work (not the rest of the chain) for JFR recordings, see ProfilingService.
+        JwtFilterEvent event = new JwtFilterEvent();
+        event.begin();
+        try {
+            authenticate(request);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = request.getRequestURI();
+                event.authenticated = SecurityContextHolder.getContext().getAuthentication() != null;
+                event.commit();
+            }
+        }
+
+//        After the JWT has been validated and the user authenticated (if the token is valid), the filter chain continues,
+//        and the request proceeds to the next filter or controller.
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request) {
+
 //        authHeader: The JWT token is typically passed in the HTTP Authorization header as a Bearer token.
 //        The header looks like this: Authorization: Bearer <jwt_token>.
         String authHeader = request.getHeader("Authorization");
         String token = null;
+        VerifiedToken verified = null;
         String username = null;
 //Checking for the Bearer token: The code checks if the Authorization header is present and starts with Bearer .
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             //Extracting the token: If the header starts with Bearer ,
             // the actual token is extracted by removing the first 7 characters.
             token = authHeader.substring(7);
-            //Extracting the username: The token is passed to the jwtService to extract
-            //the username (likely contained in the JWT's payload).
-            username = jwtService.extractUserName(token);
+            //Verifying the token and extracting the username: The token is verified once by the jwtService
+            //and the username (the subject in the JWT's payload) is taken from the result.
+            try {
+                verified = jwtService.verify(token);
+                username = verified.subject();
+            } catch (JwtException e) {
+//                Expired, tampered or malformed token: audit it, then fail the request exactly as before.
+                auditLog.record(AuthEventType.TOKEN_REJECTED, null, e.getClass().getSimpleName());
+                throw e;
+            }
         }
 
 //SecurityContextHolder.getContext().getAuthentication() == null: This checks if the current request is already authenticated.
@@ -58,19 +97,19 @@ public class JwtFilter extends OncePerRequestFilter {
 
 //username != null: This ensures that a valid username was extracted from the token.
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-//            Loading user details: The MyUserDetailsService is used to load the user’s details
-//            from the database (based on the username extracted from the JWT).
-//            This retrieves the UserDetails object for the authenticated user.
-            UserDetails userDetails = context.getBean(MyUserDetailsService.class).loadUserByUsername(username);
-//            Validating the token: The jwtService.validateToken(token, userDetails) checks whether the JWT
+//            Loading user details: The UserPrincipalCache returns the user's details, loading them
+//            from the database through MyUserDetailsService only on a miss or after the entry expired.
+            UserDetails userDetails = principalCache.getPrincipal(username);
+//            Validating the token: The jwtService.validateToken(verified, userDetails) checks whether the JWT
 //            is valid for the given UserDetails. This could involve checking the token’s signature, expiration,
 //            and any claims it contains.
-            if (jwtService.validateToken(token, userDetails)) {
-//            Creating an Authentication object: If the token is valid, a UsernamePasswordAuthenticationToken object is
-//            created, which represents a fully authenticated user. It takes the user’s details and authorities (roles).
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource()
-                        .buildDetails(request));
+            if (jwtService.validateToken(verified, userDetails)) {
+//            Getting the Authentication object: If the token is valid, the cached UsernamePasswordAuthenticationToken
+//            for this user is used, which represents a fully authenticated user with the user's details and authorities (roles).
+//            No WebAuthenticationDetails (remote address, session id) are attached: the API is stateless and the
+//            token is shared between requests. It is read-only (setDetails/setAuthenticated throw), so nothing
+//            downstream can change what other requests of the same user see.
+                Authentication authToken = principalCache.getAuthentication(username);
 
 //             Setting the Security Context: The authentication object is stored in the SecurityContextHolder,
 //             which Spring Security uses to manage the user’s authentication for the current request.
@@ -78,14 +117,9 @@ public class JwtFilter extends OncePerRequestFilter {
 //              From this point forward, the user is considered authenticated, and their identity will be available throughout
 //              the rest of the request processing (including access control checks).
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+            } else {
+                auditLog.record(AuthEventType.TOKEN_REJECTED, username, "validation failed");
             }
         }
-
-//        After the JWT has been validated and the user authenticated (if the token is valid), the filter chain continues,
-//        and the request proceeds to the next filter or controller.
-        chain.doFilter(request, response);
-
-
-
     }
 }
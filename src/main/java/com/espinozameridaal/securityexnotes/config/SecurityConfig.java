@@ -1,8 +1,12 @@
 package com.espinozameridaal.securityexnotes.config;
 
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.profiling.ProfiledPasswordEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -23,6 +27,9 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 //Enables Spring Security for the application. This annotation triggers
 // Spring's web security support and allows customization of the security configuration
 @EnableWebSecurity
+//Only for the default servlet stack. When running with the "reactive" profile
+// ReactiveSecurityConfig provides the equivalent SecurityWebFilterChain instead.
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 
 public class SecurityConfig {
 
@@ -50,6 +57,16 @@ public class SecurityConfig {
 // to be accessed publicly using .permitAll() for specific routes.
 
 
+// ROLES
+//      requestMatchers("/admin/**").hasRole("ADMIN") / requestMatchers("/applications").hasAnyRole("USER", "ADMIN"):
+//
+//Role based authorization: the authorities come from the user's role bitset (see Role and UserPrincipal).
+// hasRole("ADMIN") matches the authority "ROLE_ADMIN". Rules are checked in order, the first match wins.
+// /introspect (batch token checks) is for gateway service accounts (GATEWAY) and admins.
+// The student roster (/students) can be read by users, but only admins may load or clear it.
+// /error is open: error responses (403, 404, 413, ...) are rendered by an error dispatch to /error, which
+// does not go through JwtFilter again, so without this rule every one of them would turn into a 401.
+
 // NEWER VERSION
 //      requestMatchers("register", "login").permitAll():
 //
@@ -100,6 +117,18 @@ public class SecurityConfig {
                 authorizeHttpRequests(request -> request
                         .requestMatchers("register","login")
                         .permitAll()
+                        .requestMatchers("/error")
+                        .permitAll()
+                        .requestMatchers("/admin/**")
+                        .hasRole(Role.ADMIN.name())
+                        .requestMatchers("/introspect")
+                        .hasAnyRole(Role.GATEWAY.name(), Role.ADMIN.name())
+                        .requestMatchers(HttpMethod.POST, "/students")
+                        .hasRole(Role.ADMIN.name())
+                        .requestMatchers(HttpMethod.DELETE, "/students")
+                        .hasRole(Role.ADMIN.name())
+                        .requestMatchers("/applications", "/students/**")
+                        .hasAnyRole(Role.USER.name(), Role.ADMIN.name())
                         .anyRequest()
                         .authenticated()).
                 httpBasic(Customizer.withDefaults()).
@@ -142,7 +171,8 @@ public class SecurityConfig {
 // (i.e., it stores them in plain text). This is highly insecure
 // and should never be used in production.
 //Instead, you should replace this with a more secure encoder like BCryptPasswordEncoder.
-        provider.setPasswordEncoder(new BCryptPasswordEncoder(12));
+//ProfiledPasswordEncoder only adds a JFR PasswordHashEvent around each BCrypt call (see ProfilingService).
+        provider.setPasswordEncoder(new ProfiledPasswordEncoder(new BCryptPasswordEncoder(12)));
 
 //This links the custom UserDetailsService (likely your MyUserDetailsService)
 // to the authentication provider, so it can load users from your database.
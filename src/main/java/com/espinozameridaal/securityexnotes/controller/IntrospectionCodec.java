@@ -0,0 +1,147 @@
+package com.espinozameridaal.securityexnotes.controller;
+
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService.TokenIntrospection;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//The two /introspect wire formats (described in TokenIntrospectionController), shared by the servlet
+// and the reactive controller. Pure functions over byte arrays, no I/O.
+//
+//Bad requests are reported with ResponseStatusException, which both stacks turn into the response:
+// malformed input -> 400, more than maxBatchSize tokens or maxBodyBytes bytes -> 413.
+public final class IntrospectionCodec {
+
+//    Largest subject the binary response can carry: its length is a u16.
+    static final int MAX_SUBJECT_BYTES = 0xFFFF;
+
+    private IntrospectionCodec() {
+    }
+
+//    The controllers read at most maxBodyBytes + 1 bytes, so a body that is too large is never buffered
+//    whole. bodyBytes is a Content-Length (-1 if unknown) or the number of bytes actually read.
+    public static void checkBodySize(long bodyBytes, int maxBodyBytes) {
+        if (bodyBytes > maxBodyBytes) {
+            throw bodyTooLarge(maxBodyBytes);
+        }
+    }
+
+    public static ResponseStatusException bodyTooLarge(int maxBodyBytes) {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + maxBodyBytes + " bytes per request");
+    }
+
+//    NDJSON request: one token per line, raw or as a JSON string; blank lines are ignored.
+    public static List<String> readNdjson(byte[] body, ObjectMapper objectMapper, int maxBatchSize) {
+        List<String> tokens = new ArrayList<>();
+//        Without FAIL_ON_TRAILING_TOKENS a line like "a" "b" would quietly be read as "a".
+        ObjectReader reader = objectMapper.readerFor(String.class).with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        String[] lines = new String(body, StandardCharsets.UTF_8).split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String token = lines[i].strip();
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (token.startsWith("\"")) {
+                try {
+                    token = reader.readValue(token);
+                } catch (JsonProcessingException e) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Line " + (i + 1) + ": invalid JSON string");
+                }
+            }
+            add(tokens, token, maxBatchSize);
+        }
+        return tokens;
+    }
+
+//    NDJSON response: one object per line, in request order.
+    public static byte[] writeNdjson(TokenIntrospection[] results, ObjectMapper objectMapper) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(results.length * 96);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+//            Lines are separated by '\n' only, not by Jackson's default root value separator (a space).
+            json.setRootValueSeparator(null);
+            for (TokenIntrospection result : results) {
+                json.writeStartObject();
+                json.writeBooleanField("active", result.active());
+                if (result.active()) {
+                    json.writeStringField("sub", result.subject());
+                    json.writeNumberField("exp", result.expiresAtMillis());
+                    json.writeArrayFieldStart("authorities");
+                    for (String authority : result.authorities()) {
+                        json.writeString(authority);
+                    }
+                    json.writeEndArray();
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+//    Binary request: repeated [u16 token length][token bytes, ASCII].
+    public static List<String> readBinary(byte[] body, int maxBatchSize) {
+        List<String> tokens = new ArrayList<>();
+        ByteBuffer in = ByteBuffer.wrap(body);
+        try {
+            while (in.hasRemaining()) {
+                int length = Short.toUnsignedInt(in.getShort());
+                byte[] token = new byte[length];
+                in.get(token);
+                add(tokens, new String(token, StandardCharsets.US_ASCII), maxBatchSize);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Truncated token frame");
+        }
+        return tokens;
+    }
+
+//    Binary response: repeated [u8 active]; for active tokens followed by
+//    [i64 exp epoch millis][i32 role bitset][u16 subject length][subject UTF-8].
+//    A subject longer than 65535 bytes can't be framed; instead of letting writeShort wrap the length
+//    (and corrupt every frame after it) the whole response fails. NDJSON has no such limit.
+    public static byte[] writeBinary(TokenIntrospection[] results) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(results.length * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (TokenIntrospection result : results) {
+                out.writeByte(result.active() ? 1 : 0);
+                if (result.active()) {
+                    byte[] subject = result.subject().getBytes(StandardCharsets.UTF_8);
+                    if (subject.length > MAX_SUBJECT_BYTES) {
+                        throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                                "Subject of " + subject.length + " bytes does not fit the binary format, use application/x-ndjson");
+                    }
+                    out.writeLong(result.expiresAtMillis());
+                    out.writeInt(result.roles());
+                    out.writeShort(subject.length);
+                    out.write(subject);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void add(List<String> tokens, String token, int maxBatchSize) {
+        if (tokens.size() >= maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + maxBatchSize + " tokens per request");
+        }
+        tokens.add(token);
+    }
+}
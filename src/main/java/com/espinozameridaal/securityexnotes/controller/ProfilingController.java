@@ -0,0 +1,82 @@
+package com.espinozameridaal.securityexnotes.controller;
+
+import com.espinozameridaal.securityexnotes.service.ProfilingService;
+import com.espinozameridaal.securityexnotes.service.ProfilingService.ProfileReport;
+import com.espinozameridaal.securityexnotes.service.ProfilingService.RecordingStateException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+//Admin endpoints to profile a live node with JFR (see ProfilingService).
+//Everything under /admin/** requires the ADMIN role (SecurityConfig).
+//Servlet stack only; ReactiveProfilingController serves the same endpoints on WebFlux.
+//
+//POST /admin/profiling/start?seconds=30   starts a time-boxed recording
+//POST /admin/profiling/stop               stops it early
+//GET  /admin/profiling                    state of the current recording
+//GET  /admin/profiling/report?top=20      summary: auth event timings, hot methods, allocations
+//GET  /admin/profiling/recording          the raw .jfr file (open it in JDK Mission Control)
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProfilingController {
+
+    @Autowired
+    private ProfilingService profilingService;
+
+    @PostMapping("/admin/profiling/start")
+    public Map<String, String> start(@RequestParam(defaultValue = "30") long seconds) throws IOException {
+        Path file = profilingService.start(Duration.ofSeconds(seconds));
+        return Map.of("state", profilingService.getState(), "recording", file.getFileName().toString());
+    }
+
+    @PostMapping("/admin/profiling/stop")
+    public Map<String, String> stop() {
+        Path file = profilingService.stop();
+        return Map.of("state", profilingService.getState(), "recording", file.getFileName().toString());
+    }
+
+    @GetMapping("/admin/profiling")
+    public Map<String, String> state() {
+        return Map.of("state", profilingService.getState());
+    }
+
+    @GetMapping("/admin/profiling/report")
+    public ProfileReport report(@RequestParam(defaultValue = "20") int top) throws IOException {
+        return profilingService.report(top);
+    }
+
+    @GetMapping("/admin/profiling/recording")
+    public ResponseEntity<Resource> recording() {
+        Path file = profilingService.getRecordingFile();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(new FileSystemResource(file));
+    }
+
+//    A recording already running / none finished yet: 409. Bad duration or top: 400.
+    @ExceptionHandler(RecordingStateException.class)
+    public ResponseEntity<Map<String, String>> conflict(RecordingStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
@@ -1,16 +1,39 @@
 package com.espinozameridaal.securityexnotes.controller;
 
-import com.espinozameridaal.securityexnotes.model.JobApplication;
+import com.espinozameridaal.securityexnotes.dto.JobApplicationResponse;
+import com.espinozameridaal.securityexnotes.roster.GradeHistogram;
+import com.espinozameridaal.securityexnotes.roster.NoStudentsException;
+import com.espinozameridaal.securityexnotes.roster.StudentBatch;
+import com.espinozameridaal.securityexnotes.roster.StudentStore;
+import com.espinozameridaal.securityexnotes.service.JobApplicationService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import com.espinozameridaal.securityexnotes.model.Student;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 
@@ -26,27 +49,120 @@ import java.util.List;
 // (like a valid username and password).
 //Without valid credentials, the server will return a 401 Unauthorized response.
 @RestController
+//Servlet stack only (the roster endpoints read the HttpServletRequest body); ReactiveStudentController serves /applications on the reactive stack.
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class StudentController {
 
-    List<JobApplication> jobApplications = new ArrayList<>(
-            List.of(
-                    new JobApplication("Google", "Software Engineer"),
-                    new JobApplication("Microsoft", "Backend Developer"),
-                    new JobApplication("Amazon", "Cloud Engineer"),
-                    new JobApplication("Apple", "iOS Developer"),
-                    new JobApplication("Facebook", "Data Scientist"),
-                    new JobApplication("Netflix", "DevOps Engineer"),
-                    new JobApplication("Tesla", "AI Researcher"),
-                    new JobApplication("Airbnb", "Full Stack Developer"),
-                    new JobApplication("Uber", "Mobile Developer"),
-                    new JobApplication("Salesforce", "Solutions Architect")
-            )
-    );
+    @Autowired
+    private JobApplicationService jobApplicationService;
 
+    @Autowired
+    private StudentStore studentStore;
 
+    @Value("${students.max-batch-size:5000000}")
+    private int maxBatchSize;
+
+    @Value("${students.max-top-n:10000}")
+    private int maxTopN;
+
+    private final ObjectMapper objectMapper;
+
+    public StudentController(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+
+//    The records are built once by JobApplicationService; Spring's Jackson converter serializes the list
+//    (with the JacksonConfig mapper) and server.compression gzips it on the way out.
     @GetMapping("/applications")
-    public List<JobApplication> getStudents() {
-        return jobApplications;
+    public List<JobApplicationResponse> getStudents() {
+        return jobApplicationService.getApplications();
+    }
+
+// STUDENT ROSTER (see StudentStore)
+//
+//POST   /students?replace=false   bulk load, JSON array of students or text/csv (id,name,marks), ADMIN only
+//DELETE /students                 clears the roster, ADMIN only
+//GET    /students/{id}            one student
+//GET    /students/top?n=10        the n best students
+//GET    /students/percentiles?p=50,90,99
+//GET    /students/histogram?bucketWidth=10
+//
+//The bulk load reads the request body as a stream (no @RequestBody): the students go straight into
+// the store's int columns instead of becoming a List<Student> first.
+    @PostMapping(value = "/students", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Integer> loadStudentsJson(HttpServletRequest request,
+                                                 @RequestParam(defaultValue = "false") boolean replace) throws IOException {
+        StudentBatch batch;
+        try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+            batch = StudentBatch.readJson(parser, maxBatchSize);
+        }
+        return loaded(batch, replace);
+    }
+
+    @PostMapping(value = "/students", consumes = "text/csv")
+    public Map<String, Integer> loadStudentsCsv(HttpServletRequest request,
+                                                @RequestParam(defaultValue = "false") boolean replace) throws IOException {
+        StudentBatch batch;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            batch = StudentBatch.readCsv(reader, maxBatchSize);
+        }
+        return loaded(batch, replace);
+    }
+
+    private Map<String, Integer> loaded(StudentBatch batch, boolean replace) {
+        int size = studentStore.load(batch, replace);
+        return Map.of("loaded", batch.size(), "size", size);
+    }
+
+    @DeleteMapping("/students")
+    public ResponseEntity<Void> clearStudents() {
+        studentStore.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/students/{id}")
+    public Student getStudent(@PathVariable int id) {
+        Student student = studentStore.find(id);
+        if (student == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No student with id " + id);
+        }
+        return student;
+    }
+
+    @GetMapping("/students/top")
+    public List<Student> getTopStudents(@RequestParam(defaultValue = "10") int n) {
+        if (n > maxTopN) {
+            throw new IllegalArgumentException("n must be at most " + maxTopN);
+        }
+        return studentStore.top(n);
+    }
+
+//    {"50":72,"90":88,"99":97}: percentile -> mark, in request order.
+    @GetMapping("/students/percentiles")
+    public Map<String, Integer> getPercentiles(@RequestParam(defaultValue = "50,90,99") double[] p) {
+        int[] values = studentStore.percentiles(p);
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < p.length; i++) {
+            result.put(p[i] == Math.rint(p[i]) ? String.valueOf((long) p[i]) : String.valueOf(p[i]), values[i]);
+        }
+        return result;
+    }
+
+    @GetMapping("/students/histogram")
+    public GradeHistogram getHistogram(@RequestParam(defaultValue = "10") int bucketWidth) {
+        return studentStore.histogram(bucketWidth);
+    }
+
+//    Invalid input or parameters: 400. Queries on an empty roster: 404.
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(NoStudentsException.class)
+    public ResponseEntity<Map<String, String>> noStudents(NoStudentsException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
     }
 
     @GetMapping("/csrf-token")
@@ -0,0 +1,79 @@
+package com.espinozameridaal.securityexnotes.controller;
+
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService;
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService.TokenIntrospection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+
+//Batch token introspection for API gateways and sidecars: one round trip checks hundreds of tokens.
+//Only callers with the GATEWAY or ADMIN role may use it (see SecurityConfig).
+//
+//POST /introspect accepts two payload formats and answers in the same format, results in request order:
+//
+//NDJSON (Content-Type: application/x-ndjson)
+// request : one token per line, either raw or as a JSON string ("eyJ..."); blank lines are ignored.
+// response: one JSON object per line,
+//           {"active":true,"sub":"bob","exp":1792499052000,"authorities":["ROLE_USER"]}  or  {"active":false}
+//
+//Binary (Content-Type: application/octet-stream), all numbers big endian
+// request : repeated [u16 token length][token bytes, ASCII]
+// response: repeated [u8 active]; for active tokens followed by
+//           [i64 exp epoch millis][i32 role bitset, see Role][u16 subject length][subject UTF-8]
+//
+//Bodies larger than introspection.max-body-bytes are rejected with 413 after reading at most one byte
+// past the limit (no @RequestBody byte[], which would buffer the whole body first).
+//
+//Parsing and encoding live in IntrospectionCodec. This controller is servlet-only: the service
+// blocks (JPA lookups on a cache miss), which the reactive stack must keep off its event loop,
+// see ReactiveTokenIntrospectionController.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TokenIntrospectionController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private TokenIntrospectionService introspectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${introspection.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${introspection.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+
+    @PostMapping(value = "/introspect", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public ResponseEntity<byte[]> introspectNdjson(HttpServletRequest request) throws IOException {
+        byte[] body = readBody(request);
+        TokenIntrospection[] results = introspectionService.introspect(IntrospectionCodec.readNdjson(body, objectMapper, maxBatchSize));
+        return ResponseEntity.ok().contentType(NDJSON).body(IntrospectionCodec.writeNdjson(results, objectMapper));
+    }
+
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> introspectBinary(HttpServletRequest request) throws IOException {
+        byte[] body = readBody(request);
+        TokenIntrospection[] results = introspectionService.introspect(IntrospectionCodec.readBinary(body, maxBatchSize));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(IntrospectionCodec.writeBinary(results));
+    }
+
+//    A declared Content-Length over the limit fails before anything is read; chunked bodies are cut off
+//    one byte past the limit.
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        IntrospectionCodec.checkBodySize(request.getContentLengthLong(), maxBodyBytes);
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        IntrospectionCodec.checkBodySize(body.length, maxBodyBytes);
+        return body;
+    }
+}
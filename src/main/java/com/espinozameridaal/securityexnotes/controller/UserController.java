@@ -1,20 +1,24 @@
 package com.espinozameridaal.securityexnotes.controller;
 
+import com.espinozameridaal.securityexnotes.dto.UserResponse;
 import com.espinozameridaal.securityexnotes.model.Users;
 import com.espinozameridaal.securityexnotes.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
     @Autowired
     private UserService userService;
 
     @PostMapping("/register")
-    public Users register(@RequestBody Users user) {
-        return userService.register(user);
+    public UserResponse register(@RequestBody Users user) {
+//        UserResponse: only id, username and roles go back to the client, never the password hash.
+        return UserResponse.from(userService.register(user));
     }
 
     @PostMapping("/login")
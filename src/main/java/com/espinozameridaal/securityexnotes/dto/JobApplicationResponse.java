@@ -0,0 +1,13 @@
+package com.espinozameridaal.securityexnotes.dto;
+
+import com.espinozameridaal.securityexnotes.model.JobApplication;
+
+//What /applications returns for one job application.
+//A record has a fixed, final set of fields, so Jackson (with Blackbird) builds its serializer once
+// and never has to look at Lombok getters or any other properties the model might grow.
+public record JobApplicationResponse(String companyName, String positionTitle) {
+
+    public static JobApplicationResponse from(JobApplication application) {
+        return new JobApplicationResponse(application.getCompanyName(), application.getPositionTitle());
+    }
+}
@@ -0,0 +1,24 @@
+package com.espinozameridaal.securityexnotes.dto;
+
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.model.Users;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//What /register returns: the saved user WITHOUT the password hash.
+//Returning the Users entity directly used to send the BCrypt hash back to the client.
+//
+//roles: the role names, e.g. ["USER"], decoded from the entity's role bitset.
+public record UserResponse(int id, String username, List<String> roles) {
+
+    public static UserResponse from(Users user) {
+        List<String> roles = new ArrayList<>();
+        for (Role role : Role.values()) {
+            if (user.hasRole(role)) {
+                roles.add(role.name());
+            }
+        }
+        return new UserResponse(user.getId(), user.getUsername(), roles);
+    }
+}
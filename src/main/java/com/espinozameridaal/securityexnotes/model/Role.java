@@ -0,0 +1,70 @@
+package com.espinozameridaal.securityexnotes.model;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//The roles a user can have.
+//
+//Users stores its roles as a bitset in a single int column ("roles"): bit n is set when the user
+// has the role with ordinal n. Only ever add new roles at the END, so existing rows keep their meaning.
+//
+//Authorities: Spring Security's hasRole("ADMIN") checks for the authority "ROLE_ADMIN".
+// Every role owns exactly one GrantedAuthority instance, and every possible combination of roles
+// has one precomputed, unmodifiable authority list. getAuthorities() therefore never allocates.
+public enum Role {
+    USER,
+    ADMIN,
+//    GATEWAY: service accounts of upstream gateways/sidecars, allowed to call /introspect.
+    GATEWAY;
+
+    private static final Role[] VALUES = values();
+
+//    AUTHORITIES[mask]: the authority list for that combination of role bits.
+    private static final List<List<GrantedAuthority>> AUTHORITIES;
+
+    static {
+        List<List<GrantedAuthority>> sets = new ArrayList<>(1 << VALUES.length);
+        for (int mask = 0; mask < 1 << VALUES.length; mask++) {
+            List<GrantedAuthority> set = new ArrayList<>();
+            for (Role role : VALUES) {
+                if ((mask & role.bit()) != 0) {
+                    set.add(role.authority);
+                }
+            }
+            sets.add(Collections.unmodifiableList(set));
+        }
+        AUTHORITIES = Collections.unmodifiableList(sets);
+    }
+
+    private final GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + name());
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public GrantedAuthority getAuthority() {
+        return authority;
+    }
+
+    public static int mask(Role... roles) {
+        int mask = 0;
+        for (Role role : roles) {
+            mask |= role.bit();
+        }
+        return mask;
+    }
+
+//    Rows created before roles existed have mask 0; they are treated as plain USERs.
+    public static int normalize(int mask) {
+        int known = mask & ((1 << VALUES.length) - 1);
+        return known == 0 ? USER.bit() : known;
+    }
+
+    public static List<GrantedAuthority> authoritiesOf(int mask) {
+        return AUTHORITIES.get(normalize(mask));
+    }
+}
@@ -1,23 +1,21 @@
 package com.espinozameridaal.securityexnotes.model;
 
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 
 public class UserPrincipal implements UserDetails {
 
-//    Users user: This is an instance of your custom Users entity.
-//    It contains all the user details, such as the username, password,
-//    and potentially additional information like roles or account status.
-
-//This user object is passed into the constructor when the UserPrincipal object
-// is created. The fields of this user will be used to fulfill the contract
-// required by UserDetails.
+//    The principal copies what Spring Security needs out of the Users entity
+//    (username, password hash and role bits) instead of keeping a reference to it.
+//
+//All fields are final, so a UserPrincipal is immutable: it can be cached and shared between
+// requests/threads (see UserPrincipalCache) and it doesn't keep a JPA entity alive.
 
-    private Users user;
+    private final String username;
+    private final String password;
+    private final int roles;
 
 //    The constructor accepts an instance of the Users entity.
 //    This allows the UserPrincipal class to access the user’s information
@@ -25,23 +23,26 @@ public class UserPrincipal implements UserDetails {
 //    when needed.
 
     public UserPrincipal(Users user) {
-        this.user = user;
+        this.username = user.getUsername();
+        this.password = user.getPassword();
+        this.roles = Role.normalize(user.getRoles());
     }
 
 //    Purpose: This method returns the authorities (roles or permissions) granted to the user.
-//    In this case, you are returning a single authority "USER".
 //
-//Security Role: The roles or permissions returned here are used by Spring Security for authorization purposes
-// (to restrict access to certain parts of your application). This means that any user authenticated using this
-// UserPrincipal will have the role USER.
+//The roles come from the user's role bitset. Role.authoritiesOf returns a shared, precomputed
+// list (e.g. [ROLE_USER] or [ROLE_USER, ROLE_ADMIN]), so calling this allocates nothing.
 //
-//Improvement: If your Users entity has a dynamic role or authority structure
-// (e.g., users can have multiple roles like ADMIN, USER, etc.),
-// you should return a collection of roles from the database.
+//Security Role: The roles returned here are used by Spring Security for authorization purposes,
+// e.g. hasRole("ADMIN") in SecurityConfig checks for ROLE_ADMIN.
 
     @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singleton(new SimpleGrantedAuthority("USER"));
+    public List<GrantedAuthority> getAuthorities() {
+        return Role.authoritiesOf(roles);
+    }
+
+    public int getRoles() {
+        return roles;
     }
 
 //    Purpose: This method returns the user's password, which is necessary for authentication.
@@ -52,13 +53,13 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     //Purpose: This method returns the username, which is used to identify the user during authentication.
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
 
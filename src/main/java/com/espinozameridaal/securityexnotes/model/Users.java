@@ -15,4 +15,11 @@ public class Users {
     private int id;
     private String username;
     private String password;
+//    roles: bitset of Role (bit n = Role with ordinal n), e.g. USER = 1, ADMIN = 2, both = 3.
+//    One int column instead of a join table, and the principal's authorities come from Role.authoritiesOf(roles).
+    private int roles;
+
+    public boolean hasRole(Role role) {
+        return (Role.normalize(roles) & role.bit()) != 0;
+    }
 }
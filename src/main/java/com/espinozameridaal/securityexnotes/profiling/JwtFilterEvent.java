@@ -0,0 +1,24 @@
+package com.espinozameridaal.securityexnotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//JFR event: the time JwtFilter (or ReactiveJwtFilter) itself spends on a request (token check, user lookup, security context),
+// NOT including the rest of the filter chain and the controller.
+@Name("securityexnotes.JwtFilter")
+@Label("JWT Filter")
+@Category({"SecurityExNotes", "Auth"})
+@Description("Own time of JwtFilter for one request")
+@StackTrace(false)
+public class JwtFilterEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Authenticated")
+    public boolean authenticated;
+}
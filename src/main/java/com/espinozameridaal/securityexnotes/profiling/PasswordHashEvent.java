@@ -0,0 +1,20 @@
+package com.espinozameridaal.securityexnotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//JFR event: one BCrypt operation, either hashing a new password ("encode") or checking a login ("matches").
+@Name("securityexnotes.PasswordHash")
+@Label("Password Hash")
+@Category({"SecurityExNotes", "Auth"})
+@Description("BCrypt encode or matches call")
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+}
@@ -0,0 +1,50 @@
+package com.espinozameridaal.securityexnotes.profiling;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+//Wraps a PasswordEncoder (BCrypt) and records a PasswordHashEvent around every encode/matches call.
+//Used everywhere the application hashes passwords: SecurityConfig's DaoAuthenticationProvider,
+// UserService.register and the reactive stack.
+public class ProfiledPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public ProfiledPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = "encode";
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = "matches";
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
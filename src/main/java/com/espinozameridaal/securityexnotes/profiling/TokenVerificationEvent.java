@@ -0,0 +1,25 @@
+package com.espinozameridaal.securityexnotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//JFR event: one JWTService.verify call (signature, parsing and expiry check of a token).
+//Like all JFR events it costs next to nothing while no recording has it enabled.
+@Name("securityexnotes.TokenVerification")
+@Label("Token Verification")
+@Category({"SecurityExNotes", "Auth"})
+@Description("Verification of a JWT by JWTService")
+@StackTrace(false)
+public class TokenVerificationEvent extends Event {
+
+    @Label("Fast Path")
+    @Description("Verified by FastHs256Verifier rather than jjwt")
+    public boolean fastPath;
+
+    @Label("Valid")
+    public boolean valid;
+}
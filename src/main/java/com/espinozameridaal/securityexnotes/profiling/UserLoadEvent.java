@@ -0,0 +1,24 @@
+package com.espinozameridaal.securityexnotes.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//JFR event: one database lookup of a user in MyUserDetailsService.loadUserByUsername.
+//Cache hits in UserPrincipalCache don't produce this event, so the count shows how often the DB is hit.
+@Name("securityexnotes.UserLoad")
+@Label("User Load")
+@Category({"SecurityExNotes", "Auth"})
+@Description("Loading a user from the database")
+@StackTrace(false)
+public class UserLoadEvent extends Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Found")
+    public boolean found;
+}
@@ -0,0 +1,55 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.audit.AuthAuditLog;
+import com.espinozameridaal.securityexnotes.audit.AuthEventType;
+import com.espinozameridaal.securityexnotes.model.UserPrincipal;
+import com.espinozameridaal.securityexnotes.model.Users;
+import com.espinozameridaal.securityexnotes.profiling.UserLoadEvent;
+import com.espinozameridaal.securityexnotes.repo.UserRepo;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+//The reactive counterpart of MyUserDetailsService.
+//
+//ReactiveUserDetailsService: The interface Spring Security's WebFlux support calls to load a user
+// (for HTTP Basic / login) - it returns a Mono instead of the UserDetails itself.
+//
+//UserRepo is JPA and therefore blocking, so the lookup is wrapped in Mono.fromCallable and
+// subscribed on a scheduler meant for blocking work. The server's request threads are never
+// used for database calls.
+//
+//Unknown users: instead of throwing UsernameNotFoundException this returns an empty Mono,
+// which is what the reactive authentication manager expects.
+public class MyReactiveUserDetailsService implements ReactiveUserDetailsService {
+
+    private final UserRepo userRepo;
+    private final AuthAuditLog auditLog;
+    private final Scheduler blockingScheduler;
+
+    public MyReactiveUserDetailsService(UserRepo userRepo, AuthAuditLog auditLog, Scheduler blockingScheduler) {
+        this.userRepo = userRepo;
+        this.auditLog = auditLog;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return Mono.fromCallable(() -> {
+                    UserLoadEvent event = new UserLoadEvent();
+                    event.begin();
+                    Users user = userRepo.findByUsername(username);
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.username = username;
+                        event.found = user != null;
+                        event.commit();
+                    }
+                    return user;
+                })
+                .subscribeOn(blockingScheduler)
+                .switchIfEmpty(Mono.fromRunnable(() -> auditLog.record(AuthEventType.USER_NOT_FOUND, username, null)))
+                .map(UserPrincipal::new);
+    }
+}
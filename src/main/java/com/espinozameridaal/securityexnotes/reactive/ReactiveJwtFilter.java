@@ -0,0 +1,118 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.audit.AuthAuditLog;
+import com.espinozameridaal.securityexnotes.audit.AuthEventType;
+import com.espinozameridaal.securityexnotes.profiling.JwtFilterEvent;
+import com.espinozameridaal.securityexnotes.service.JWTService;
+import com.espinozameridaal.securityexnotes.service.UserPrincipalCache;
+import com.espinozameridaal.securityexnotes.service.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+
+//The reactive counterpart of JwtFilter: same steps, but as a WebFilter that never blocks.
+//
+//1. Read the "Authorization: Bearer <jwt_token>" header.
+//2. Verify the token once with the shared JWTService (pure CPU work: signature check + parsing).
+//3. Get the user's shared, read-only token from UserPrincipalCache, like JwtFilter does. A hit is a map
+//   lookup and stays on the event loop; a miss loads the user from the database on blockingScheduler.
+//4. If jwtService.validateToken(...) passes, the Authentication is written into the Reactor
+//   context with ReactiveSecurityContextHolder - the reactive equivalent of SecurityContextHolder.
+//
+//This is deliberately NOT a @Component: WebFlux registers every WebFilter bean globally, and this
+// filter must only run inside the security chain (see ReactiveSecurityConfig).
+public class ReactiveJwtFilter implements WebFilter {
+
+    private final JWTService jwtService;
+    private final UserPrincipalCache principalCache;
+    private final Scheduler blockingScheduler;
+    private final AuthAuditLog auditLog;
+
+    public ReactiveJwtFilter(JWTService jwtService, UserPrincipalCache principalCache, Scheduler blockingScheduler,
+                             AuthAuditLog auditLog) {
+        this.jwtService = jwtService;
+        this.principalCache = principalCache;
+        this.blockingScheduler = blockingScheduler;
+        this.auditLog = auditLog;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+        String token = authHeader.substring(7);
+
+//        JFR: the event spans token check + user lookup and ends before the rest of the chain runs
+//        (it may end on a different thread than it began on, which JFR allows).
+        JwtFilterEvent event = new JwtFilterEvent();
+        event.begin();
+
+        VerifiedToken verified;
+        try {
+            verified = jwtService.verify(token);
+        } catch (JwtException e) {
+            auditLog.record(AuthEventType.TOKEN_REJECTED, null, e.getClass().getSimpleName());
+            commit(event, exchange, false);
+            return Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token"));
+        }
+        String username = verified.subject();
+        if (username == null) {
+            commit(event, exchange, false);
+            return chain.filter(exchange);
+        }
+
+//        Optional is used so that "no authentication" is a value: chain.filter(...) itself completes empty,
+//        so a switchIfEmpty after it would run the rest of the chain a second time.
+        return authentication(username)
+                .filter(authentication -> jwtService.validateToken(verified, (UserDetails) authentication.getPrincipal()))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(authentication -> {
+                    commit(event, exchange, authentication.isPresent());
+                    if (authentication.isEmpty()) {
+                        auditLog.record(AuthEventType.TOKEN_REJECTED, username, "validation failed");
+                        return chain.filter(exchange);
+                    }
+                    return chain.filter(exchange)
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication.get()));
+                });
+    }
+
+//    Unknown users complete empty (MyUserDetailsService has already recorded USER_NOT_FOUND).
+//    publishOn: the rest of the chain - and the response write - continues on a parallel thread, never on
+//    the blockingScheduler worker (Tomcat fails the write if Reactor interrupts that worker mid-request).
+    private Mono<Authentication> authentication(String username) {
+        Authentication cached = principalCache.getCachedAuthentication(username);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.fromCallable(() -> principalCache.getAuthentication(username))
+                .subscribeOn(blockingScheduler)
+                .publishOn(Schedulers.parallel())
+                .onErrorResume(UsernameNotFoundException.class, e -> Mono.empty());
+    }
+
+    private static void commit(JwtFilterEvent event, ServerWebExchange exchange, boolean authenticated) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = exchange.getRequest().getPath().value();
+            event.authenticated = authenticated;
+            event.commit();
+        }
+    }
+}
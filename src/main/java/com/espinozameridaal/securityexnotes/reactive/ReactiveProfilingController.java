@@ -0,0 +1,101 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.service.ProfilingService;
+import com.espinozameridaal.securityexnotes.service.ProfilingService.ProfileReport;
+import com.espinozameridaal.securityexnotes.service.ProfilingService.RecordingStateException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+///admin/profiling on the reactive stack, same endpoints as ProfilingController.
+//
+//ProfilingService does file I/O (creating the directory, deleting the previous recording, parsing the
+// whole .jfr file for the report) and its methods wait on each other's lock, so every call runs on
+// blockingScheduler. The result (or the 400/409 error) is handed back to a parallel thread before the
+// response is written: Tomcat fails writes from a blockingScheduler worker that Reactor interrupts.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProfilingController {
+
+    private final ProfilingService profilingService;
+    private final Scheduler blockingScheduler;
+
+    public ReactiveProfilingController(ProfilingService profilingService, Scheduler blockingScheduler) {
+        this.profilingService = profilingService;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @PostMapping("/admin/profiling/start")
+    public Mono<Map<String, String>> start(@RequestParam(defaultValue = "30") long seconds) {
+        return Mono.fromCallable(() -> {
+                    Path file = profilingService.start(Duration.ofSeconds(seconds));
+                    return Map.of("state", profilingService.getState(), "recording", file.getFileName().toString());
+                })
+                .subscribeOn(blockingScheduler)
+                .publishOn(Schedulers.parallel());
+    }
+
+    @PostMapping("/admin/profiling/stop")
+    public Mono<Map<String, String>> stop() {
+        return Mono.fromCallable(() -> {
+                    Path file = profilingService.stop();
+                    return Map.of("state", profilingService.getState(), "recording", file.getFileName().toString());
+                })
+                .subscribeOn(blockingScheduler)
+                .publishOn(Schedulers.parallel());
+    }
+
+    @GetMapping("/admin/profiling")
+    public Mono<Map<String, String>> state() {
+        return Mono.fromCallable(() -> Map.of("state", profilingService.getState()))
+                .subscribeOn(blockingScheduler)
+                .publishOn(Schedulers.parallel());
+    }
+
+    @GetMapping("/admin/profiling/report")
+    public Mono<ProfileReport> report(@RequestParam(defaultValue = "20") int top) {
+        return Mono.fromCallable(() -> profilingService.report(top))
+                .subscribeOn(blockingScheduler)
+                .publishOn(Schedulers.parallel());
+    }
+
+    @GetMapping("/admin/profiling/recording")
+    public Mono<ResponseEntity<Resource>> recording() {
+        return Mono.fromCallable(() -> {
+                    Path file = profilingService.getRecordingFile();
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                            .<Resource>body(new FileSystemResource(file));
+                })
+                .subscribeOn(blockingScheduler)
+                .publishOn(Schedulers.parallel());
+    }
+
+//    A recording already running / none finished yet: 409. Bad duration or top: 400.
+    @ExceptionHandler(RecordingStateException.class)
+    public ResponseEntity<Map<String, String>> conflict(RecordingStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.audit.AuthAuditLog;
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.profiling.ProfiledPasswordEncoder;
+import com.espinozameridaal.securityexnotes.repo.UserRepo;
+import com.espinozameridaal.securityexnotes.service.JWTService;
+import com.espinozameridaal.securityexnotes.service.UserPrincipalCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+
+//The reactive (WebFlux) version of SecurityConfig, for the non-blocking gateway-style deployment.
+//
+//It is only active when the application runs as a reactive web application, i.e. with the
+// "reactive" profile (application-reactive.yml sets spring.main.web-application-type=reactive).
+// In the default servlet mode SecurityConfig, JwtFilter, UserController and UserService are used
+// instead, and none of the beans below exist.
+//
+//JWTService, UserRepo, UserPrincipal and AuthAuditLog are shared by both stacks.
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+//    Where blocking work goes: JPA calls and BCrypt hashing. boundedElastic grows up to
+//    10 x CPU cores threads and queues the rest, so a login burst can't create unbounded threads.
+//    Results go back to Schedulers.parallel() (publishOn) before the response is written: on Tomcat a
+//    write from a blockingScheduler worker fails if Reactor interrupts that worker ("The current thread
+//    was interrupted"), which dropped error responses in particular.
+    @Bean
+    public Scheduler blockingScheduler() {
+        return Schedulers.boundedElastic();
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new ProfiledPasswordEncoder(new BCryptPasswordEncoder(12));
+    }
+
+    @Bean
+    public ReactiveUserDetailsService reactiveUserDetailsService(UserRepo userRepo, AuthAuditLog auditLog, Scheduler blockingScheduler) {
+        return new MyReactiveUserDetailsService(userRepo, auditLog, blockingScheduler);
+    }
+
+//    Replaces DaoAuthenticationProvider + AuthenticationManager from SecurityConfig.
+//    setScheduler: the password check runs on blockingScheduler, not on the event loop.
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(ReactiveUserDetailsService userDetailsService,
+                                                                       PasswordEncoder passwordEncoder,
+                                                                       Scheduler blockingScheduler) {
+        UserDetailsRepositoryReactiveAuthenticationManager manager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        manager.setPasswordEncoder(passwordEncoder);
+        manager.setScheduler(blockingScheduler);
+        return manager;
+    }
+
+    @Bean
+    public ReactiveUserService reactiveUserService(UserRepo userRepo, JWTService jwtService, PasswordEncoder passwordEncoder,
+                                                   ReactiveAuthenticationManager authenticationManager, AuthAuditLog auditLog,
+                                                   Scheduler blockingScheduler) {
+        return new ReactiveUserService(userRepo, jwtService, passwordEncoder, authenticationManager, auditLog, blockingScheduler);
+    }
+
+//    Same rules as SecurityConfig.securityFilterChain:
+//    - CSRF disabled (stateless API).
+//    - register and login are public, /admin/** needs ADMIN, /introspect GATEWAY or ADMIN, /applications USER or ADMIN,
+//      everything else needs authentication. /introspect and /admin/profiling are served by
+//      ReactiveTokenIntrospectionController and ReactiveProfilingController, which run their (blocking)
+//      work on blockingScheduler.
+//    - HTTP Basic stays enabled.
+//    - NoOpServerSecurityContextRepository: nothing is stored between requests (the reactive STATELESS).
+//    - The JWT filter runs at the AUTHENTICATION position, like addFilterBefore(UsernamePasswordAuthenticationFilter).
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JWTService jwtService,
+                                                         UserPrincipalCache principalCache, Scheduler blockingScheduler,
+                                                         AuthAuditLog auditLog) {
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers("/register", "/login")
+                        .permitAll()
+                        .pathMatchers("/admin/**")
+                        .hasRole(Role.ADMIN.name())
+                        .pathMatchers("/introspect")
+                        .hasAnyRole(Role.GATEWAY.name(), Role.ADMIN.name())
+                        .pathMatchers("/applications")
+                        .hasAnyRole(Role.USER.name(), Role.ADMIN.name())
+                        .anyExchange()
+                        .authenticated())
+                .httpBasic(Customizer.withDefaults())
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .addFilterAt(new ReactiveJwtFilter(jwtService, principalCache, blockingScheduler, auditLog), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.dto.JobApplicationResponse;
+import com.espinozameridaal.securityexnotes.service.JobApplicationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+///applications on the reactive stack (StudentController is servlet-only).
+//Returning a Flux lets WebFlux's Jackson encoder write the elements as they come instead of
+// serializing one big list first.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStudentController {
+
+    private final JobApplicationService jobApplicationService;
+
+    public ReactiveStudentController(JobApplicationService jobApplicationService) {
+        this.jobApplicationService = jobApplicationService;
+    }
+
+    @GetMapping("/applications")
+    public Flux<JobApplicationResponse> getApplications() {
+        return Flux.fromIterable(jobApplicationService.getApplications());
+    }
+}
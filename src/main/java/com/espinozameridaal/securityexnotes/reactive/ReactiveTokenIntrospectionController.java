@@ -0,0 +1,89 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.controller.IntrospectionCodec;
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService;
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService.TokenIntrospection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+///introspect on the reactive stack, same formats as TokenIntrospectionController (see IntrospectionCodec).
+//
+//TokenIntrospectionService blocks: users missing from UserPrincipalCache are loaded through JPA.
+// So the whole batch - parsing, verification, lookups, encoding - runs on blockingScheduler, and the
+// result is handed back to a parallel thread for the response write (Tomcat fails that write if it
+// happens on a blockingScheduler worker that Reactor interrupts mid-request).
+//
+//The body is joined from its DataBuffers with a cap of introspection.max-body-bytes: larger bodies get
+// 413 without being buffered whole (and WebFlux's 256 KB codec limit for byte[] doesn't apply).
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTokenIntrospectionController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final TokenIntrospectionService introspectionService;
+    private final ObjectMapper objectMapper;
+    private final Scheduler blockingScheduler;
+
+    @Value("${introspection.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${introspection.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+
+    public ReactiveTokenIntrospectionController(TokenIntrospectionService introspectionService, ObjectMapper objectMapper,
+                                                Scheduler blockingScheduler) {
+        this.introspectionService = introspectionService;
+        this.objectMapper = objectMapper;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @PostMapping(value = "/introspect", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public Mono<ResponseEntity<byte[]>> introspectNdjson(ServerHttpRequest request) {
+        return readBody(request)
+                .publishOn(blockingScheduler)
+                .map(body -> {
+                    TokenIntrospection[] results = introspectionService.introspect(IntrospectionCodec.readNdjson(body, objectMapper, maxBatchSize));
+                    return ResponseEntity.ok().contentType(NDJSON).body(IntrospectionCodec.writeNdjson(results, objectMapper));
+                })
+                .publishOn(Schedulers.parallel());
+    }
+
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<byte[]>> introspectBinary(ServerHttpRequest request) {
+        return readBody(request)
+                .publishOn(blockingScheduler)
+                .map(body -> {
+                    TokenIntrospection[] results = introspectionService.introspect(IntrospectionCodec.readBinary(body, maxBatchSize));
+                    return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(IntrospectionCodec.writeBinary(results));
+                })
+                .publishOn(Schedulers.parallel());
+    }
+
+//    join(..., maxBodyBytes) fails with DataBufferLimitException as soon as the buffers exceed the limit.
+    private Mono<byte[]> readBody(ServerHttpRequest request) {
+        if (request.getHeaders().getContentLength() > maxBodyBytes) {
+            return Mono.error(IntrospectionCodec.bodyTooLarge(maxBodyBytes));
+        }
+        return DataBufferUtils.join(request.getBody(), maxBodyBytes)
+                .map(buffer -> {
+                    byte[] body = new byte[buffer.readableByteCount()];
+                    buffer.read(body);
+                    DataBufferUtils.release(buffer);
+                    return body;
+                })
+                .defaultIfEmpty(new byte[0])
+                .onErrorMap(DataBufferLimitException.class, e -> IntrospectionCodec.bodyTooLarge(maxBodyBytes));
+    }
+}
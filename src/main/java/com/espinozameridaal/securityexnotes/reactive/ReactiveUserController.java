@@ -0,0 +1,32 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.dto.UserResponse;
+import com.espinozameridaal.securityexnotes.model.Users;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+//Same endpoints as UserController, but returning Mono so the request thread (an event loop)
+// is released while the password is hashed/checked and the user is saved.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @PostMapping("/register")
+    public Mono<UserResponse> register(@RequestBody Users user) {
+        return userService.register(user).map(UserResponse::from);
+    }
+
+    @PostMapping("/login")
+    public Mono<String> login(@RequestBody Users user) {
+        return userService.verify(user);
+    }
+}
@@ -0,0 +1,81 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.audit.AuthAuditLog;
+import com.espinozameridaal.securityexnotes.audit.AuthEventType;
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.model.Users;
+import com.espinozameridaal.securityexnotes.repo.UserRepo;
+import com.espinozameridaal.securityexnotes.service.JWTService;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+//The reactive counterpart of UserService (register + login).
+//
+//BCrypt with strength 12 takes tens of milliseconds of pure CPU per hash. On the servlet stack that
+// only ties up one of many request threads, but on the reactive stack it would stall an event loop
+// thread that serves thousands of connections. So both the hashing and the blocking JPA save run
+// on blockingScheduler.
+//
+//Login goes through the ReactiveAuthenticationManager, which also checks the password off the
+// event loop (UserDetailsRepositoryReactiveAuthenticationManager uses a bounded elastic scheduler).
+public class ReactiveUserService {
+
+    private final UserRepo userRepo;
+    private final JWTService jwtService;
+    private final PasswordEncoder encoder;
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final AuthAuditLog auditLog;
+    private final Scheduler blockingScheduler;
+
+    public ReactiveUserService(UserRepo userRepo, JWTService jwtService, PasswordEncoder encoder,
+                               ReactiveAuthenticationManager authenticationManager, AuthAuditLog auditLog,
+                               Scheduler blockingScheduler) {
+        this.userRepo = userRepo;
+        this.jwtService = jwtService;
+        this.encoder = encoder;
+        this.authenticationManager = authenticationManager;
+        this.auditLog = auditLog;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    public Mono<Users> register(Users user) {
+        return Mono.fromCallable(() -> {
+                    user.setPassword(encoder.encode(user.getPassword()));
+//                    New accounts are always plain users, whatever roles the request body contained.
+                    user.setRoles(Role.USER.bit());
+                    Users saved = userRepo.save(user);
+                    auditLog.record(AuthEventType.REGISTERED, saved.getUsername(), null);
+                    return saved;
+                })
+                .subscribeOn(blockingScheduler)
+                .publishOn(Schedulers.parallel());
+    }
+
+//    Same contract as UserService.verify: a JWT on success, "fail" if the manager returns an
+//    unauthenticated result. Bad credentials become a 401 instead of an unhandled exception.
+    public Mono<String> verify(Users user) {
+        return authenticationManager
+                .authenticate(new UsernamePasswordAuthenticationToken(user.getUsername(), user.getPassword()))
+//                The manager checks the password on blockingScheduler; continue on a parallel thread.
+                .publishOn(Schedulers.parallel())
+                .map(authentication -> {
+                    if (authentication.isAuthenticated()) {
+                        auditLog.record(AuthEventType.LOGIN_SUCCESS, user.getUsername(), null);
+                        return jwtService.generateToken(user.getUsername());
+                    }
+                    auditLog.record(AuthEventType.LOGIN_FAILURE, user.getUsername(), "not authenticated");
+                    return "fail";
+                })
+                .onErrorMap(AuthenticationException.class, e -> {
+                    auditLog.record(AuthEventType.LOGIN_FAILURE, user.getUsername(), e.getClass().getSimpleName());
+                    return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Bad credentials");
+                });
+    }
+}
@@ -0,0 +1,260 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//GradeAnalytics: The roster queries, as fork-join tasks over one StudentColumns snapshot.
+//
+//Every task splits its row range in half until it is at most `threshold` rows, scans the leaves
+// sequentially (a tight loop over int[] marks, no boxing) and merges the partial results:
+// - top N:   each leaf keeps a bounded heap of its N best rows, heaps are merged pairwise,
+// - counts:  each leaf counts marks per bucket into its own int[], the arrays are added up.
+//Percentiles are answered from exact per-mark counts when the marks span a small range (the normal
+// case for grades), otherwise from a parallel sort of a copy of the marks.
+final class GradeAnalytics {
+
+//    Above this many distinct mark values percentiles sort instead of counting,
+//    to keep the per-leaf count arrays small.
+    static final int MAX_COUNTED_RANGE = 1 << 16;
+
+    private GradeAnalytics() {
+    }
+
+//    Rows of the n best students, best first (see StudentColumns.ranksBefore).
+    static int[] topRows(ForkJoinPool pool, StudentColumns columns, int n, int threshold) {
+        RowHeap heap = pool.invoke(new TopTask(columns, 0, columns.size, n, leafSize(threshold)));
+        return heap.drainBestFirst();
+    }
+
+//    {min, max} of the marks. The snapshot must not be empty.
+    static int[] minMax(ForkJoinPool pool, StudentColumns columns, int threshold) {
+        return pool.invoke(new MinMaxTask(columns.marks, 0, columns.size, leafSize(threshold)));
+    }
+
+//    counts[b] = number of marks m with start + b * width <= m < start + (b + 1) * width.
+    static int[] count(ForkJoinPool pool, StudentColumns columns, long start, int width, int buckets, int threshold) {
+        return pool.invoke(new CountTask(columns.marks, 0, columns.size, start, width, buckets, leafSize(threshold)));
+    }
+
+//    Nearest-rank percentiles: the smallest mark such that at least p% of all marks are <= it (p = 0 gives the minimum).
+    static int[] percentiles(ForkJoinPool pool, StudentColumns columns, double[] percentiles, int threshold) {
+        int n = columns.size;
+        int[] minMax = minMax(pool, columns, threshold);
+        long range = (long) minMax[1] - minMax[0] + 1;
+        int[] values = new int[percentiles.length];
+
+        if (range <= MAX_COUNTED_RANGE) {
+            int[] counts = count(pool, columns, minMax[0], 1, (int) range, threshold);
+            for (int i = 0; i < percentiles.length; i++) {
+                long rank = rank(percentiles[i], n);
+                long seen = 0;
+                int bucket = 0;
+                while (seen + counts[bucket] < rank) {
+                    seen += counts[bucket++];
+                }
+                values[i] = minMax[0] + bucket;
+            }
+        } else {
+            int[] sorted = Arrays.copyOf(columns.marks, n);
+            Arrays.parallelSort(sorted);
+            for (int i = 0; i < percentiles.length; i++) {
+                values[i] = sorted[(int) rank(percentiles[i], n) - 1];
+            }
+        }
+        return values;
+    }
+
+//    A leaf must hold at least one row, otherwise a one-row range would be split forever.
+    private static int leafSize(int threshold) {
+        return Math.max(1, threshold);
+    }
+
+//    percentile * n first: exact for whole percentiles, while percentile / 100 is not (0.07 * 100 = 7.000000000000001
+//    would round up to rank 8).
+    private static long rank(double percentile, int n) {
+        return Math.max(1, (long) Math.ceil(percentile * n / 100));
+    }
+
+    private static final class TopTask extends RecursiveTask<RowHeap> {
+
+        private final StudentColumns columns;
+        private final int from;
+        private final int to;
+        private final int n;
+        private final int threshold;
+
+        TopTask(StudentColumns columns, int from, int to, int n, int threshold) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.n = n;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected RowHeap compute() {
+            if (to - from <= threshold) {
+                RowHeap heap = new RowHeap(columns, n);
+                for (int row = from; row < to; row++) {
+                    heap.offer(row);
+                }
+                return heap;
+            }
+            int middle = (from + to) >>> 1;
+            TopTask left = new TopTask(columns, from, middle, n, threshold);
+            left.fork();
+            RowHeap right = new TopTask(columns, middle, to, n, threshold).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private static final class MinMaxTask extends RecursiveTask<int[]> {
+
+        private final int[] marks;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        MinMaxTask(int[] marks, int from, int to, int threshold) {
+            this.marks = marks;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= threshold) {
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+                for (int row = from; row < to; row++) {
+                    min = Math.min(min, marks[row]);
+                    max = Math.max(max, marks[row]);
+                }
+                return new int[]{min, max};
+            }
+            int middle = (from + to) >>> 1;
+            MinMaxTask left = new MinMaxTask(marks, from, middle, threshold);
+            left.fork();
+            int[] right = new MinMaxTask(marks, middle, to, threshold).compute();
+            int[] result = left.join();
+            result[0] = Math.min(result[0], right[0]);
+            result[1] = Math.max(result[1], right[1]);
+            return result;
+        }
+    }
+
+    private static final class CountTask extends RecursiveTask<int[]> {
+
+        private final int[] marks;
+        private final int from;
+        private final int to;
+        private final long start;
+        private final int width;
+        private final int buckets;
+        private final int threshold;
+
+        CountTask(int[] marks, int from, int to, long start, int width, int buckets, int threshold) {
+            this.marks = marks;
+            this.from = from;
+            this.to = to;
+            this.start = start;
+            this.width = width;
+            this.buckets = buckets;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= threshold) {
+                int[] counts = new int[buckets];
+                for (int row = from; row < to; row++) {
+                    counts[(int) ((marks[row] - start) / width)]++;
+                }
+                return counts;
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(marks, from, middle, start, width, buckets, threshold);
+            left.fork();
+            int[] right = new CountTask(marks, middle, to, start, width, buckets, threshold).compute();
+            int[] counts = left.join();
+            for (int b = 0; b < buckets; b++) {
+                counts[b] += right[b];
+            }
+            return counts;
+        }
+    }
+
+//    Bounded min-heap of rows: the root is the worst of the (at most n) best rows seen so far,
+//    so a row that does not beat it is rejected with a single comparison.
+    private static final class RowHeap {
+
+        private final StudentColumns columns;
+        private final int[] rows;
+        private int size;
+
+        RowHeap(StudentColumns columns, int n) {
+            this.columns = columns;
+            this.rows = new int[n];
+        }
+
+        void offer(int row) {
+            if (size < rows.length) {
+                rows[size] = row;
+                siftUp(size++);
+            } else if (size > 0 && columns.ranksBefore(row, rows[0])) {
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        RowHeap merge(RowHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.rows[i]);
+            }
+            return this;
+        }
+
+//        Heap sort: repeatedly moves the worst row to the end.
+        int[] drainBestFirst() {
+            int[] result = new int[size];
+            while (size > 0) {
+                result[size - 1] = rows[0];
+                rows[0] = rows[--size];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            int row = rows[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!columns.ranksBefore(rows[parent], row)) {
+                    break;
+                }
+                rows[i] = rows[parent];
+                i = parent;
+            }
+            rows[i] = row;
+        }
+
+        private void siftDown(int i) {
+            int row = rows[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && columns.ranksBefore(rows[child], rows[child + 1])) {
+                    child++;
+                }
+                if (!columns.ranksBefore(row, rows[child])) {
+                    break;
+                }
+                rows[i] = rows[child];
+                i = child;
+            }
+            rows[i] = row;
+        }
+    }
+}
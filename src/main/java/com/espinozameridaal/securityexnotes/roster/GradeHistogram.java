@@ -0,0 +1,11 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+import java.util.List;
+
+//What /students/histogram returns: the roster size, the lowest and highest mark, and one bucket per
+// bucketWidth marks from the lowest to the highest mark (from/to inclusive, empty buckets included).
+public record GradeHistogram(int count, int min, int max, int bucketWidth, List<Bucket> buckets) {
+
+    public record Bucket(long from, long to, int count) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+import java.util.Arrays;
+
+//IdIndex: student id -> row in the columns, as one int array with linear probing.
+//
+//A HashMap<Integer, Integer> would cost an entry object plus two boxed Integers per student
+// (around 50 bytes). Here a slot holds only the row: the id itself is already in the ids column,
+// so the caller passes that column in and a slot matches when ids[row] == id. That is 4 bytes per
+// slot, at most two thirds of the slots being used.
+//-1 marks an empty slot.
+final class IdIndex {
+
+    private int[] rows;
+    private int size;
+
+    IdIndex(int expectedIds) {
+        rows = new int[NameTable.tableSize(expectedIds)];
+        Arrays.fill(rows, -1);
+    }
+
+    private IdIndex(IdIndex other) {
+        rows = other.rows.clone();
+        size = other.size;
+    }
+
+//    Returns the row of the id, or -1 when the id is unknown.
+    int get(int id, int[] ids) {
+        int mask = rows.length - 1;
+        int i = slot(id, mask);
+        while (rows[i] != -1) {
+            if (ids[rows[i]] == id) {
+                return rows[i];
+            }
+            i = i + 1 & mask;
+        }
+        return -1;
+    }
+
+//    Only called for ids that are not in the index yet (StudentStore checks with get first);
+//    ids[row] must already hold the id.
+    void put(int row, int[] ids) {
+        if ((size + 1) * 3L > rows.length * 2L) {
+            rehash(rows.length * 2, ids);
+        }
+        insert(rows, row, ids[row]);
+        size++;
+    }
+
+    IdIndex copy() {
+        return new IdIndex(this);
+    }
+
+    private void rehash(int capacity, int[] ids) {
+        int[] rehashed = new int[capacity];
+        Arrays.fill(rehashed, -1);
+        for (int row : rows) {
+            if (row != -1) {
+                insert(rehashed, row, ids[row]);
+            }
+        }
+        rows = rehashed;
+    }
+
+    private static void insert(int[] table, int row, int id) {
+        int mask = table.length - 1;
+        int i = slot(id, mask);
+        while (table[i] != -1) {
+            i = i + 1 & mask;
+        }
+        table[i] = row;
+    }
+
+//    Sequential ids are the common case; the multiply spreads them over the whole table.
+    private static int slot(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+}
@@ -0,0 +1,89 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+import java.util.Arrays;
+
+//NameTable: The interned name column of the roster.
+//
+//Every distinct name is stored once and rows only keep its int reference, so a cohort of millions
+// of students with a few thousand distinct names holds a few thousand Strings, not millions.
+//
+//Lookup is an open-addressing hash table of int slots (reference + 1, 0 = empty): no HashMap
+// entries and no boxed Integers. null names get the reference -1.
+final class NameTable {
+
+    private String[] names;
+    private int[] slots;
+    private int size;
+
+    NameTable(int expectedNames) {
+        names = new String[Math.max(16, expectedNames)];
+        slots = new int[tableSize(expectedNames)];
+    }
+
+    private NameTable(NameTable other) {
+        names = Arrays.copyOf(other.names, other.names.length);
+        slots = other.slots.clone();
+        size = other.size;
+    }
+
+    int intern(String name) {
+        if (name == null) {
+            return -1;
+        }
+        int mask = slots.length - 1;
+        int i = slot(name, mask);
+        while (slots[i] != 0) {
+            String existing = names[slots[i] - 1];
+            if (existing.equals(name)) {
+                return slots[i] - 1;
+            }
+            i = i + 1 & mask;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        slots[i] = ++size;
+//        Keep the table at most two thirds full so probe sequences stay short.
+        if (size * 3L > slots.length * 2L) {
+            rehash(slots.length * 2);
+        }
+        return size - 1;
+    }
+
+    String get(int ref) {
+        return ref < 0 ? null : names[ref];
+    }
+
+    int size() {
+        return size;
+    }
+
+    NameTable copy() {
+        return new NameTable(this);
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int ref = 0; ref < size; ref++) {
+            int i = slot(names[ref], mask);
+            while (rehashed[i] != 0) {
+                i = i + 1 & mask;
+            }
+            rehashed[i] = ref + 1;
+        }
+        slots = rehashed;
+    }
+
+    private static int slot(String name, int mask) {
+        int h = name.hashCode() * 0x9E3779B9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+//    Smallest power of two that holds the expected entries at most two thirds full (shared with IdIndex).
+    static int tableSize(int expected) {
+        int minimum = (int) Math.min(1 << 30, Math.max(16, expected) * 3L / 2 + 1);
+        return Integer.highestOneBit(minimum - 1) << 1;
+    }
+}
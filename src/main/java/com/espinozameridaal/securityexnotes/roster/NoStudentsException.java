@@ -0,0 +1,10 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+//Thrown by the StudentStore queries that need at least one student (percentiles, histogram)
+// when the roster is empty. The controller answers it with 404 Not Found.
+public class NoStudentsException extends RuntimeException {
+
+    public NoStudentsException() {
+        super("No students loaded");
+    }
+}
@@ -0,0 +1,131 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+//StudentBatch: Students parsed from one bulk load, in the same columnar layout as the store.
+//
+//The readers stream the request body straight into the int columns: no List<Student>, no
+// Student objects, and every name is interned as soon as it is read, so the duplicate name
+// Strings coming out of the parser are garbage right away.
+//
+//Bad input (malformed JSON/CSV, missing fields, more than maxSize students) is reported with an
+// IllegalArgumentException, which the controller answers with 400 Bad Request.
+public final class StudentBatch {
+
+    private final int maxSize;
+    int[] ids;
+    int[] marks;
+    int[] nameRefs;
+    final NameTable names = new NameTable(1024);
+    int size;
+
+    public StudentBatch(int maxSize) {
+        this.maxSize = maxSize;
+        int capacity = Math.min(maxSize, 1024);
+        ids = new int[capacity];
+        marks = new int[capacity];
+        nameRefs = new int[capacity];
+    }
+
+    public void add(int id, String name, int mark) {
+        if (size == maxSize) {
+            throw new IllegalArgumentException("At most " + maxSize + " students per load");
+        }
+        if (size == ids.length) {
+            int capacity = (int) Math.min(maxSize, size * 2L);
+            ids = Arrays.copyOf(ids, capacity);
+            marks = Arrays.copyOf(marks, capacity);
+            nameRefs = Arrays.copyOf(nameRefs, capacity);
+        }
+        ids[size] = id;
+        marks[size] = mark;
+        nameRefs[size] = names.intern(name);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+//    JSON: an array of Student objects, [{"id":1,"name":"Alice","marks":91}, ...].
+//    id and marks are required, name may be null or missing, other fields are ignored.
+    public static StudentBatch readJson(JsonParser parser, int maxSize) throws IOException {
+        StudentBatch batch = new StudentBatch(maxSize);
+        try {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of students");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                boolean hasId = false;
+                boolean hasMarks = false;
+                int id = 0;
+                int mark = 0;
+                String name = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "id" -> {
+                            id = parser.getIntValue();
+                            hasId = true;
+                        }
+                        case "marks" -> {
+                            mark = parser.getIntValue();
+                            hasMarks = true;
+                        }
+                        case "name" -> name = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                        default -> parser.skipChildren();
+                    }
+                }
+                if (!hasId || !hasMarks) {
+                    throw new IllegalArgumentException("Student #" + (batch.size + 1) + " needs an id and marks");
+                }
+                batch.add(id, name, mark);
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of students");
+            }
+        } catch (JsonProcessingException e) {
+//            Also covers numbers that are not ints (InputCoercionException).
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        return batch;
+    }
+
+//    CSV: one "id,name,marks" line per student, an optional header line "id,name,marks" first.
+//    The name is everything between the first and the last comma, so names may contain commas;
+//    surrounding double quotes are removed and an empty name is read as null.
+    public static StudentBatch readCsv(BufferedReader reader, int maxSize) throws IOException {
+        StudentBatch batch = new StudentBatch(maxSize);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || lineNumber == 1 && line.regionMatches(true, 0, "id,", 0, 3)) {
+                continue;
+            }
+            int first = line.indexOf(',');
+            int last = line.lastIndexOf(',');
+            if (first < 0 || first == last) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected id,name,marks");
+            }
+            String name = line.substring(first + 1, last).strip();
+            if (name.length() >= 2 && name.charAt(0) == '"' && name.charAt(name.length() - 1) == '"') {
+                name = name.substring(1, name.length() - 1);
+            }
+            try {
+                batch.add(Integer.parseInt(line, 0, first, 10), name.isEmpty() ? null : name,
+                        Integer.parseInt(line.substring(last + 1).strip()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": id and marks must be integers");
+            }
+        }
+        return batch;
+    }
+}
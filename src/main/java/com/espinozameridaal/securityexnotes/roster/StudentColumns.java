@@ -0,0 +1,43 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+import com.espinozameridaal.securityexnotes.model.Student;
+
+//StudentColumns: One immutable snapshot of the roster, stored column by column.
+//
+//Row r is the student (ids[r], names.get(nameRefs[r]), marks[r]). Only rows below size are used.
+//
+//A Student object per row would cost a header, a reference to its own name String and padding
+// (about 24 bytes + the String) and scatter the marks all over the heap. Here a student is 12 bytes
+// in three int arrays (+ 6-12 bytes in the id index), and the analytics scan marks[] sequentially.
+//
+//Snapshots are never modified after StudentStore publishes them, so queries read them without locks.
+final class StudentColumns {
+
+    static final StudentColumns EMPTY = new StudentColumns(0, new int[0], new int[0], new int[0],
+            new NameTable(0), new IdIndex(0));
+
+    final int size;
+    final int[] ids;
+    final int[] marks;
+    final int[] nameRefs;
+    final NameTable names;
+    final IdIndex index;
+
+    StudentColumns(int size, int[] ids, int[] marks, int[] nameRefs, NameTable names, IdIndex index) {
+        this.size = size;
+        this.ids = ids;
+        this.marks = marks;
+        this.nameRefs = nameRefs;
+        this.names = names;
+        this.index = index;
+    }
+
+    Student student(int row) {
+        return new Student(ids[row], names.get(nameRefs[row]), marks[row]);
+    }
+
+//    Rank order of the roster: higher marks first, equal marks by lower id.
+    boolean ranksBefore(int row, int other) {
+        return marks[row] > marks[other] || marks[row] == marks[other] && ids[row] < ids[other];
+    }
+}
@@ -0,0 +1,173 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+import com.espinozameridaal.securityexnotes.model.Student;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//StudentStore: The in-memory student roster behind /students.
+//
+//Storage is columnar and primitive (see StudentColumns): int[] ids and marks, an interned name
+// table and an open-addressing id index: about 20 bytes per student, so a million students take ~20 MB of heap.
+//
+//Writes are copy-on-write: load(...) builds a new snapshot from the current one plus the batch and
+// publishes it with a single volatile write. Loads are serialized; queries never block and always
+// see one complete snapshot, even while a large load is running.
+//
+//Queries (top N, percentiles, histogram) run as fork-join tasks (see GradeAnalytics) on the store's
+// own ForkJoinPool (students.parallelism, "student-analytics-N"), not on the common pool: a burst of
+// large queries then only competes with other roster queries, and nothing else that happens to use
+// the common pool can hold up the analytics.
+@Service
+public class StudentStore {
+
+//    Largest number of buckets a histogram may have.
+    public static final int MAX_BUCKETS = 10_000;
+
+    private volatile StudentColumns columns = StudentColumns.EMPTY;
+
+//    Leaf size of the fork-join tasks: rows below it are scanned sequentially.
+    @Value("${students.parallel-threshold:65536}")
+    private int parallelThreshold = 65536;
+
+//    Worker threads of the analytics pool; 0 = one per CPU core.
+    @Value("${students.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void start() {
+        int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ForkJoinPool(size, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("student-analytics-" + counter.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+//    Adds the batch to the roster. A student whose id is already known is replaced (within a batch the
+//    last one wins). replace = true drops the current roster first. Returns the new roster size.
+    public synchronized int load(StudentBatch batch, boolean replace) {
+        StudentColumns base = replace ? StudentColumns.EMPTY : columns;
+        int capacity = base.size + batch.size;
+        int[] ids = Arrays.copyOf(base.ids, capacity);
+        int[] marks = Arrays.copyOf(base.marks, capacity);
+        int[] nameRefs = Arrays.copyOf(base.nameRefs, capacity);
+        NameTable names = base.size == 0 ? new NameTable(batch.names.size()) : base.names.copy();
+        IdIndex index = base.size == 0 ? new IdIndex(capacity) : base.index.copy();
+
+//        The batch interned its names into its own table; translate its references once per distinct name.
+        int[] nameMapping = new int[batch.names.size()];
+        for (int ref = 0; ref < nameMapping.length; ref++) {
+            nameMapping[ref] = names.intern(batch.names.get(ref));
+        }
+
+        int size = base.size;
+        for (int i = 0; i < batch.size; i++) {
+            int id = batch.ids[i];
+            int row = index.get(id, ids);
+            if (row < 0) {
+                row = size++;
+                ids[row] = id;
+                index.put(row, ids);
+            }
+            marks[row] = batch.marks[i];
+            nameRefs[row] = batch.nameRefs[i] < 0 ? -1 : nameMapping[batch.nameRefs[i]];
+        }
+
+//        Updated ids leave unused capacity at the end; trim it so the snapshot holds exactly `size` rows.
+        if (size < capacity) {
+            ids = Arrays.copyOf(ids, size);
+            marks = Arrays.copyOf(marks, size);
+            nameRefs = Arrays.copyOf(nameRefs, size);
+        }
+        columns = new StudentColumns(size, ids, marks, nameRefs, names, index);
+        return size;
+    }
+
+    public synchronized void clear() {
+        columns = StudentColumns.EMPTY;
+    }
+
+    public int size() {
+        return columns.size;
+    }
+
+//    The student with this id, or null.
+    public Student find(int id) {
+        StudentColumns snapshot = columns;
+        int row = snapshot.index.get(id, snapshot.ids);
+        return row < 0 ? null : snapshot.student(row);
+    }
+
+//    The n best students: highest marks first, equal marks by lower id.
+    public List<Student> top(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be at least 1");
+        }
+        StudentColumns snapshot = columns;
+        int[] rows = GradeAnalytics.topRows(pool, snapshot, Math.min(n, Math.max(snapshot.size, 1)), parallelThreshold);
+        List<Student> students = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            students.add(snapshot.student(row));
+        }
+        return students;
+    }
+
+//    Nearest-rank percentiles of the marks, one value per requested percentile (each in [0, 100]).
+    public int[] percentiles(double... percentiles) {
+        for (double percentile : percentiles) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Percentiles must be between 0 and 100");
+            }
+        }
+        return GradeAnalytics.percentiles(pool, nonEmpty(), percentiles, parallelThreshold);
+    }
+
+//    Number of students per mark range of bucketWidth marks. Buckets are aligned to multiples of
+//    bucketWidth (width 10: 0-9, 10-19, ...) and run from the lowest to the highest mark present.
+    public GradeHistogram histogram(int bucketWidth) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("bucketWidth must be at least 1");
+        }
+        StudentColumns snapshot = nonEmpty();
+        int[] minMax = GradeAnalytics.minMax(pool, snapshot, parallelThreshold);
+        long start = Math.floorDiv((long) minMax[0], bucketWidth) * bucketWidth;
+        long buckets = ((long) minMax[1] - start) / bucketWidth + 1;
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Marks " + minMax[0] + ".." + minMax[1] + " need " + buckets
+                    + " buckets of width " + bucketWidth + ", at most " + MAX_BUCKETS + " are allowed");
+        }
+        int[] counts = GradeAnalytics.count(pool, snapshot, start, bucketWidth, (int) buckets, parallelThreshold);
+
+        List<GradeHistogram.Bucket> result = new ArrayList<>(counts.length);
+        for (int b = 0; b < counts.length; b++) {
+            long from = start + (long) b * bucketWidth;
+            result.add(new GradeHistogram.Bucket(from, from + bucketWidth - 1, counts[b]));
+        }
+        return new GradeHistogram(snapshot.size, minMax[0], minMax[1], bucketWidth, result);
+    }
+
+    private StudentColumns nonEmpty() {
+        StudentColumns snapshot = columns;
+        if (snapshot.size == 0) {
+            throw new NoStudentsException();
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,309 @@
+package com.espinozameridaal.securityexnotes.service;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+//FastHs256Verifier: A specialized verifier for the tokens JWTService.generateToken produces itself.
+//
+//jjwt is general purpose: for every token it splits strings, Base64-decodes into new arrays, builds a
+// full Jackson map of the header and claims and creates a new Mac. This class handles exactly one shape
+// of token with (almost) no allocation:
+//
+//  header  : exactly {"alg":"HS256"} (compared as the base64url text, nothing is decoded)
+//  payload : a flat JSON object with only "sub" (string without escapes), "iat" and "exp" (non-negative integers)
+//  signature: 32 bytes HMAC-SHA256, 43 base64url characters
+//
+//Per thread it keeps one initialized Mac and the byte buffers for the decoded payload, the signature
+// and the signing input, so the only allocations for a valid token are the subject String and the result.
+//
+//Order of checks: the payload is decoded and "exp" is checked first, an expired token is rejected before
+// the HMAC is computed. The signature is compared in constant time (MessageDigest.isEqual).
+//
+//Contract with JWTService:
+// - returns a VerifiedToken when the token is valid,
+// - throws ExpiredJwtException / SignatureException (the same types jjwt throws) when it is definitely invalid,
+// - returns null when the token is anything unusual (other header, other claims, escapes, odd lengths, ...).
+//   JWTService then hands it to jjwt, which remains the reference implementation.
+final class FastHs256Verifier {
+
+//    base64url of {"alg":"HS256"} - what jjwt writes for signWith(key, HS256) with no other header fields.
+    static final String HEADER = "eyJhbGciOiJIUzI1NiJ9";
+    private static final int SIGNATURE_BYTES = 32;
+    private static final int SIGNATURE_CHARS = 43;
+//    Tokens larger than this are left to jjwt rather than growing the per-thread buffers.
+    private static final int MAX_TOKEN_CHARS = 8192;
+
+    private static final byte[] SUB = {'s', 'u', 'b'};
+    private static final byte[] IAT = {'i', 'a', 't'};
+    private static final byte[] EXP = {'e', 'x', 'p'};
+
+//    DECODE[c]: the 6-bit value of base64url character c, or -1.
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final ThreadLocal<Buffers> buffers;
+
+    FastHs256Verifier(SecretKey key) {
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(key));
+    }
+
+    private static boolean isBlank(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    VerifiedToken verify(String token, long nowMillis) {
+        int length = token.length();
+        if (length > MAX_TOKEN_CHARS || !token.startsWith(HEADER) || length <= HEADER.length()
+                || token.charAt(HEADER.length()) != '.') {
+            return null;
+        }
+        int payloadStart = HEADER.length() + 1;
+        int signatureStart = token.indexOf('.', payloadStart) + 1;
+        if (signatureStart <= payloadStart || length - signatureStart != SIGNATURE_CHARS) {
+            return null;
+        }
+
+        Buffers b = buffers.get();
+
+//        1. Decode and read the payload, then check exp before doing anything expensive.
+        int payloadLength = decode(token, payloadStart, signatureStart - 1, b.payload);
+        if (payloadLength < 0 || !b.claims.read(b.payload, payloadLength)) {
+            return null;
+        }
+        Claims claims = b.claims;
+//        A blank sub ("" or only whitespace) is no subject at all for jjwt (getSubject() == null); let jjwt
+//        handle those tokens so both paths give callers the same answer.
+        if (claims.subStart < 0 || claims.exp < 0 || isBlank(b.payload, claims.subStart, claims.subEnd)) {
+            return null;
+        }
+        long expiresAtMillis = claims.exp * 1000;
+        if (nowMillis > expiresAtMillis) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + expiresAtMillis + ". Current time: " + nowMillis);
+        }
+
+//        2. HMAC over "header.payload" (ASCII, copied without allocating) and constant time compare.
+        int signingLength = signatureStart - 1;
+        for (int i = 0; i < signingLength; i++) {
+            b.signingInput[i] = (byte) token.charAt(i);
+        }
+        if (decode(token, signatureStart, length, b.signature) != SIGNATURE_BYTES) {
+            return null;
+        }
+        try {
+            b.mac.update(b.signingInput, 0, signingLength);
+            b.mac.doFinal(b.computed, 0);
+        } catch (GeneralSecurityException e) {
+            b.mac.reset();
+            return null;
+        }
+        if (!MessageDigest.isEqual(b.computed, b.signature)) {
+            throw new SignatureException("JWT signature does not match locally computed signature.");
+        }
+
+//        3. Only now create the subject String.
+        String subject = new String(b.payload, claims.subStart, claims.subEnd - claims.subStart, StandardCharsets.US_ASCII);
+        return new VerifiedToken(subject, claims.iat < 0 ? 0 : claims.iat * 1000, expiresAtMillis);
+    }
+
+//    Decodes unpadded base64url chars [from, to) of s into out. Returns the byte count, or -1 for
+//    invalid characters, an impossible length, non-zero trailing bits or a too small buffer.
+    private static int decode(String s, int from, int to, byte[] out) {
+        int chars = to - from;
+        int remainder = chars & 3;
+        if (remainder == 1) {
+            return -1;
+        }
+        int length = chars / 4 * 3 + (remainder == 0 ? 0 : remainder - 1);
+        if (length > out.length) {
+            return -1;
+        }
+        int o = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | v;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[o++] = (byte) (bits >> bitCount);
+                bits &= (1 << bitCount) - 1;
+            }
+        }
+//        Canonical encodings only: leftover bits must be zero.
+        return bits == 0 ? o : -1;
+    }
+
+    private static final class Buffers {
+        final Mac mac;
+        final byte[] payload = new byte[MAX_TOKEN_CHARS * 3 / 4];
+        final byte[] signingInput = new byte[MAX_TOKEN_CHARS];
+        final byte[] signature = new byte[SIGNATURE_BYTES];
+        final byte[] computed = new byte[SIGNATURE_BYTES];
+        final Claims claims = new Claims();
+
+        Buffers(SecretKey key) {
+            try {
+                mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+//    Minimal streaming reader for the payload. Reusable, all results are offsets or numbers (-1 = absent).
+    private static final class Claims {
+        int subStart;
+        int subEnd;
+        long iat;
+        long exp;
+
+        private byte[] in;
+        private int pos;
+        private int end;
+
+//        Returns false for anything this reader doesn't handle; the caller then falls back to jjwt.
+        boolean read(byte[] in, int length) {
+            this.in = in;
+            this.pos = 0;
+            this.end = length;
+            subStart = -1;
+            subEnd = -1;
+            iat = -1;
+            exp = -1;
+
+            skipWhitespace();
+            if (!consume('{')) {
+                return false;
+            }
+            skipWhitespace();
+            if (consume('}')) {
+                return atEnd();
+            }
+            while (true) {
+                skipWhitespace();
+                if (!consume('"')) {
+                    return false;
+                }
+                int keyStart = pos;
+                int keyEnd = scanString();
+                if (keyEnd < 0) {
+                    return false;
+                }
+                skipWhitespace();
+                if (!consume(':')) {
+                    return false;
+                }
+                skipWhitespace();
+                if (is(keyStart, keyEnd, SUB)) {
+                    if (subStart >= 0 || !consume('"')) {
+                        return false;
+                    }
+                    subStart = pos;
+                    subEnd = scanString();
+                    if (subEnd < 0) {
+                        return false;
+                    }
+                } else if (is(keyStart, keyEnd, IAT)) {
+                    if (iat >= 0 || (iat = readNumber()) < 0) {
+                        return false;
+                    }
+                } else if (is(keyStart, keyEnd, EXP)) {
+                    if (exp >= 0 || (exp = readNumber()) < 0) {
+                        return false;
+                    }
+                } else {
+                    return false;
+                }
+                skipWhitespace();
+                if (consume('}')) {
+                    return atEnd();
+                }
+                if (!consume(',')) {
+                    return false;
+                }
+            }
+        }
+
+//        Scans to the closing quote and returns its index (pos ends after it).
+//        Escapes, control characters and non-ASCII bytes (negative as byte) are not handled: -1.
+//        Non-ASCII is left to jjwt so malformed UTF-8 is rejected exactly the way Jackson rejects it.
+        private int scanString() {
+            while (pos < end) {
+                byte c = in[pos];
+                if (c == '"') {
+                    return pos++;
+                }
+                if (c == '\\' || c < 0x20) {
+                    return -1;
+                }
+                pos++;
+            }
+            return -1;
+        }
+
+//        Non-negative integer without sign, fraction or exponent, at most 15 digits. -1 otherwise.
+        private long readNumber() {
+            int start = pos;
+            long value = 0;
+            while (pos < end && in[pos] >= '0' && in[pos] <= '9') {
+                value = value * 10 + (in[pos++] - '0');
+            }
+            int digits = pos - start;
+            if (digits == 0 || digits > 15 || (digits > 1 && in[start] == '0')) {
+                return -1;
+            }
+            if (pos < end && (in[pos] == '.' || in[pos] == 'e' || in[pos] == 'E')) {
+                return -1;
+            }
+            return value;
+        }
+
+        private boolean is(int start, int stop, byte[] name) {
+            return stop - start == name.length && Arrays.equals(in, start, stop, name, 0, name.length);
+        }
+
+        private void skipWhitespace() {
+            while (pos < end && (in[pos] == ' ' || in[pos] == '\t' || in[pos] == '\n' || in[pos] == '\r')) {
+                pos++;
+            }
+        }
+
+        private boolean consume(char c) {
+            if (pos < end && in[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean atEnd() {
+            skipWhitespace();
+            return pos == end;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.espinozameridaal.securityexnotes.service;
 
+import com.espinozameridaal.securityexnotes.profiling.TokenVerificationEvent;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.io.Decoders;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
@@ -15,7 +18,6 @@ import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 
 //This JWTService class performs key functions related to JWTs:
@@ -35,6 +37,15 @@ public class JWTService {
 //    generated using HmacSHA256, to sign and verify JWT tokens.
     private String secretkey;
 
+//    parser: jjwt parser for the signing key, built once (it is immutable and thread safe).
+//    fastVerifier: the allocation-light HS256 path for our own tokens, see FastHs256Verifier.
+    private final JwtParser parser;
+    private final FastHs256Verifier fastVerifier;
+
+//    jwt.fast-verifier.enabled: set to false to verify every token with jjwt only.
+    @Value("${jwt.fast-verifier.enabled:true}")
+    private boolean fastVerifierEnabled = true;
+
 
 //    This constructor generates a secret key for HMAC SHA-256 and encodes it in Base64.
 //    If the algorithm isn’t available, it throws a runtime exception.
@@ -47,6 +58,8 @@ public class JWTService {
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
+        parser = Jwts.parser().verifyWith(getKey()).build();
+        fastVerifier = new FastHs256Verifier(getKey());
     }
 
 //    Parameters: username – the identifier for the user.
@@ -75,47 +88,73 @@ public class JWTService {
 
 //    Parameters: token – the JWT token to parse.
 //    Returns: The username embedded in the subject claim of the token.
-//    Process: Uses the helper method extractClaim with Claims::getSubject
-//    to extract the subject field, which corresponds to the username.
+//    Process: Verifies the token once with verify(...) and returns its subject.
+//    Throws a JwtException (e.g. ExpiredJwtException, SignatureException) if the token isn't valid.
     public String extractUserName(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
-//    Parameters: token – the JWT token.
-//    claimResolver – a function that extracts a specific claim from Claims.
-//    Purpose: A generic method to extract a specific claim (like subject or expiration) from a token.
-//    Returns: The result of claimResolver, which could be any claim within the token.
-    private <T> T extractClaim(String token, Function<Claims, T> claimResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimResolver.apply(claims);
+//  Parameters: token – the JWT token.
+//  Returns: The subject, issued-at and expiration of the token, once its signature has been verified.
+//  Process:
+//  1. Fast path (jwt.fast-verifier.enabled): FastHs256Verifier handles the tokens generateToken produces
+//     without allocating a parser, a claims map or a Mac. It returns null for anything unusual.
+//  2. Otherwise jjwt parses and verifies the token, as before.
+//  Both throw the same jjwt exception types for expired or tampered tokens.
+//  Each call is recorded as a TokenVerificationEvent when a JFR recording is running (see ProfilingService).
+    public VerifiedToken verify(String token) {
+        TokenVerificationEvent event = new TokenVerificationEvent();
+        event.begin();
+        boolean fastPath = false;
+        boolean valid = false;
+        try {
+            VerifiedToken verified = null;
+            if (fastVerifierEnabled) {
+                verified = fastVerifier.verify(token, System.currentTimeMillis());
+                fastPath = verified != null;
+            }
+            if (verified == null) {
+                Claims claims = extractAllClaims(token);
+                Date issuedAt = claims.getIssuedAt();
+                Date expiration = claims.getExpiration();
+                verified = new VerifiedToken(claims.getSubject(),
+                        issuedAt == null ? 0 : issuedAt.getTime(),
+                        expiration == null ? Long.MAX_VALUE : expiration.getTime());
+            }
+            valid = true;
+            return verified;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.fastPath = fastPath;
+                event.valid = valid;
+                event.commit();
+            }
+        }
     }
 
 //  Purpose: Parses the token to retrieve all claims within it.
 //  Returns: A Claims object containing all the data embedded in the JWT.
 //  Security: Verifies the token signature with the key obtained from getKey().
+//  The JwtParser is immutable and thread safe, so it is built once instead of per token.
     private Claims extractAllClaims(String token) {
-        return Jwts.parser().verifyWith(getKey()).build().parseClaimsJws(token).getBody();
+        return parser.parseSignedClaims(token).getPayload();
     }
 //  Parameters:token – the JWT token to validate.
 //  userDetails – user information to cross-check the token’s validity.
 //  Process:
-//  Extracts the username from the token and verifies it matches userDetails.getUsername().
-//  Checks if the token has expired using isTokenExpired.
+//  Verifies the token, then checks its subject matches userDetails.getUsername() and that it hasn't expired.
 //  Returns: true if the username matches and the token hasn’t expired; false otherwise.
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return (userName.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-//  Parameters: token – the JWT token.
-//  Returns: true if the token has expired; false otherwise.
-//  Process: Compares the token’s expiration date to the current time.
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return validateToken(verify(token), userDetails);
     }
-//  Parameters: token – the JWT token.
-//  Returns: The expiration date of the token.
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+
+//  Same check for a token that was already verified (e.g. by the filter when it extracted the username),
+//  so the signature isn't checked twice per request.
+    public boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.subject() != null
+                && token.subject().equals(userDetails.getUsername())
+                && !token.isExpired(System.currentTimeMillis());
     }
 }
@@ -0,0 +1,35 @@
+package com.espinozameridaal.securityexnotes.service;
+
+import com.espinozameridaal.securityexnotes.dto.JobApplicationResponse;
+import com.espinozameridaal.securityexnotes.model.JobApplication;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+//JobApplicationService: The job applications served by /applications, shared by the servlet
+// (StudentController) and the reactive (ReactiveStudentController) controllers.
+//
+//The sample data never changes, so the response DTOs are built once here instead of per request.
+@Service
+public class JobApplicationService {
+
+    private final List<JobApplication> jobApplications = List.of(
+            new JobApplication("Google", "Software Engineer"),
+            new JobApplication("Microsoft", "Backend Developer"),
+            new JobApplication("Amazon", "Cloud Engineer"),
+            new JobApplication("Apple", "iOS Developer"),
+            new JobApplication("Facebook", "Data Scientist"),
+            new JobApplication("Netflix", "DevOps Engineer"),
+            new JobApplication("Tesla", "AI Researcher"),
+            new JobApplication("Airbnb", "Full Stack Developer"),
+            new JobApplication("Uber", "Mobile Developer"),
+            new JobApplication("Salesforce", "Solutions Architect")
+    );
+
+    private final List<JobApplicationResponse> responses =
+            jobApplications.stream().map(JobApplicationResponse::from).toList();
+
+    public List<JobApplicationResponse> getApplications() {
+        return responses;
+    }
+}
@@ -1,7 +1,10 @@
 package com.espinozameridaal.securityexnotes.service;
 
 
+import com.espinozameridaal.securityexnotes.audit.AuthAuditLog;
+import com.espinozameridaal.securityexnotes.audit.AuthEventType;
 import com.espinozameridaal.securityexnotes.model.UserPrincipal;
+import com.espinozameridaal.securityexnotes.profiling.UserLoadEvent;
 import com.espinozameridaal.securityexnotes.model.Users;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -40,6 +43,10 @@ public class MyUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepo userRepo;
 
+//    AuthAuditLog: records lookups of unknown users in the durable audit trail.
+    @Autowired
+    private AuthAuditLog auditLog;
+
 
 //This method is the core functionality of the UserDetailsService interface.
 // It is called during the authentication process to load user details
@@ -53,12 +60,21 @@ public class MyUserDetailsService implements UserDetailsService {
 // up the user by their username in the database.
 //The Users object returned represents the user from your database,
 // which likely includes fields such as username, password, roles, etc.
+//The lookup is timed as a UserLoadEvent for JFR recordings (see ProfilingService).
+        UserLoadEvent event = new UserLoadEvent();
+        event.begin();
         Users user = userRepo.findByUsername(username);
+        event.end();
+        if (event.shouldCommit()) {
+            event.username = username;
+            event.found = user != null;
+            event.commit();
+        }
 
 //If userRepo.findByUsername() returns null, the method throws a UsernameNotFoundException, indicating that the user was not found. This will result in an authentication failure with Spring Security.
 //This ensures that only users who exist in the database can be authenticated.
         if (user == null) {
-            System.out.println("User Not Found");
+            auditLog.record(AuthEventType.USER_NOT_FOUND, username, null);
             throw new UsernameNotFoundException("user not found");
         }
 //
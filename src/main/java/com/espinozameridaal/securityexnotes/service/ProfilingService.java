@@ -0,0 +1,194 @@
+package com.espinozameridaal.securityexnotes.service;
+
+import com.espinozameridaal.securityexnotes.profiling.JwtFilterEvent;
+import com.espinozameridaal.securityexnotes.profiling.PasswordHashEvent;
+import com.espinozameridaal.securityexnotes.profiling.TokenVerificationEvent;
+import com.espinozameridaal.securityexnotes.profiling.UserLoadEvent;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//ProfilingService: On-demand Java Flight Recorder (JFR) recordings of a live node, no external agent needed.
+//
+//A recording captures:
+// - the auth pipeline events (JwtFilterEvent, TokenVerificationEvent, UserLoadEvent, PasswordHashEvent),
+//   every occurrence, with its duration,
+// - CPU samples (jdk.ExecutionSample every 20 ms) for the hot-method report,
+// - allocation samples (jdk.ObjectAllocationSample, throttled) for the allocation report.
+//
+//Only one recording runs at a time and every recording is time-boxed: it stops by itself after the
+// requested duration (at most profiling.max-duration-seconds) and is written to profiling.directory.
+//Only the latest recording file is kept: starting a new recording deletes the previous one.
+//JFR's overhead with these settings is typically around 1%.
+//
+//Requests that do not fit the recording's state (one already running, none finished yet) throw
+// RecordingStateException, which the controllers answer with 409 Conflict.
+@Service
+public class ProfilingService {
+
+    private static final List<Class<? extends Event>> AUTH_EVENTS =
+            List.of(JwtFilterEvent.class, TokenVerificationEvent.class, UserLoadEvent.class, PasswordHashEvent.class);
+
+    @Value("${profiling.max-duration-seconds:300}")
+    private long maxDurationSeconds;
+
+    @Value("${profiling.directory:${java.io.tmpdir}}")
+    private String directory;
+
+    private Recording recording;
+    private Path file;
+
+    public synchronized Path start(Duration duration) throws IOException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new RecordingStateException("A recording is already running");
+        }
+        if (duration.isNegative() || duration.isZero() || duration.getSeconds() > maxDurationSeconds) {
+            throw new IllegalArgumentException("Duration must be between 1 and " + maxDurationSeconds + " seconds");
+        }
+        close();
+
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        file = dir.resolve("auth-profile-" + System.currentTimeMillis() + ".jfr");
+
+        recording = new Recording();
+        recording.setName("auth-pipeline");
+        for (Class<? extends Event> type : AUTH_EVENTS) {
+            recording.enable(type).withThreshold(Duration.ZERO);
+        }
+        recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(20));
+        recording.enable("jdk.ObjectAllocationSample").with("throttle", "150/s");
+        recording.setToDisk(true);
+        recording.setDestination(file);
+        recording.setDuration(duration);
+        recording.start();
+        return file;
+    }
+
+//    Stops the running recording early. Returns the recording file (also when it had already stopped by itself).
+    public synchronized Path stop() {
+        if (recording == null) {
+            throw new RecordingStateException("No recording has been started");
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return file;
+    }
+
+    public synchronized String getState() {
+        return recording == null ? "NONE" : recording.getState().name();
+    }
+
+//    The finished recording file, for download and analysis in JDK Mission Control.
+    public synchronized Path getRecordingFile() {
+        if (recording == null || recording.getState() != RecordingState.CLOSED && recording.getState() != RecordingState.STOPPED
+                || !Files.exists(file)) {
+            throw new RecordingStateException("No finished recording available");
+        }
+        return file;
+    }
+
+//    Summarizes the finished recording:
+//    per auth event type: count, total/average/max duration;
+//    hot methods: top frames of the CPU samples;
+//    allocations: sampled allocation weight per class.
+//    synchronized: the file is read under the lock, so a concurrent start() cannot delete it halfway.
+    public synchronized ProfileReport report(int top) throws IOException {
+        if (top < 1) {
+            throw new IllegalArgumentException("top must be at least 1");
+        }
+        Path recordingFile = getRecordingFile();
+
+        Map<String, long[]> eventStats = new HashMap<>();
+        Map<String, Long> hotMethods = new HashMap<>();
+        Map<String, Long> allocations = new HashMap<>();
+        long samples = 0;
+
+        try (RecordingFile in = new RecordingFile(recordingFile)) {
+            while (in.hasMoreEvents()) {
+                RecordedEvent event = in.readEvent();
+                String name = event.getEventType().getName();
+                if (name.equals("jdk.ExecutionSample")) {
+                    RecordedStackTrace stackTrace = event.getStackTrace();
+                    if (stackTrace != null && !stackTrace.getFrames().isEmpty()) {
+                        RecordedFrame frame = stackTrace.getFrames().get(0);
+                        hotMethods.merge(frame.getMethod().getType().getName() + "." + frame.getMethod().getName(), 1L, Long::sum);
+                        samples++;
+                    }
+                } else if (name.equals("jdk.ObjectAllocationSample")) {
+                    allocations.merge(event.getClass("objectClass").getName(), event.getLong("weight"), Long::sum);
+                } else if (name.startsWith("securityexnotes.")) {
+//                    stats: [count, total nanos, max nanos]
+                    long nanos = event.getDuration().toNanos();
+                    long[] stats = eventStats.computeIfAbsent(name, key -> new long[3]);
+                    stats[0]++;
+                    stats[1] += nanos;
+                    stats[2] = Math.max(stats[2], nanos);
+                }
+            }
+        }
+
+        List<EventSummary> events = new ArrayList<>();
+        eventStats.forEach((name, stats) -> events.add(new EventSummary(name, stats[0],
+                stats[1] / 1e6, stats[1] / 1e6 / stats[0], stats[2] / 1e6)));
+        events.sort(Comparator.comparingDouble(EventSummary::totalMillis).reversed());
+
+        return new ProfileReport(recordingFile.getFileName().toString(), events, samples,
+                topEntries(hotMethods, top), topEntries(allocations, top));
+    }
+
+    private static List<Entry> topEntries(Map<String, Long> counts, int top) {
+        Entry[] entries = counts.entrySet().stream()
+                .map(e -> new Entry(e.getKey(), e.getValue()))
+                .toArray(Entry[]::new);
+        Arrays.sort(entries, Comparator.comparingLong(Entry::value).reversed());
+        return List.of(Arrays.copyOf(entries, Math.min(top, entries.length)));
+    }
+
+//    Discards the previous recording and its file.
+    private void close() throws IOException {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            Files.deleteIfExists(file);
+            file = null;
+        }
+    }
+
+    public record ProfileReport(String recording, List<EventSummary> authEvents, long cpuSamples,
+                                List<Entry> hotMethods, List<Entry> allocatedBytesByClass) {
+    }
+
+    public record EventSummary(String event, long count, double totalMillis, double averageMillis, double maxMillis) {
+    }
+
+//    hotMethods: value = number of CPU samples; allocatedBytesByClass: value = sampled bytes.
+    public record Entry(String name, long value) {
+    }
+
+    public static class RecordingStateException extends RuntimeException {
+
+        public RecordingStateException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.espinozameridaal.securityexnotes.service;
+
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.model.UserPrincipal;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//TokenIntrospectionService: Checks a batch of tokens for upstream gateways/sidecars.
+//
+//For every token it answers the same question JwtFilter answers for a request:
+// is the signature valid, is it unexpired, and does the subject still exist? If so the token is
+// "active" and the result carries its subject, expiry and the user's roles.
+//
+//Verification goes through JWTService.verify (so our own tokens take the fast HS256 path) and users
+// come from UserPrincipalCache, so a batch full of tokens of the same few users hits the database at
+// most once per user.
+//
+//Large batches are split into chunks that run in parallel on a dedicated, bounded pool
+// (introspection.threads, "token-introspection-N"), not on the common fork-join pool: a cache miss
+// is a blocking JPA query, and blocked common pool workers would stall everything else that uses
+// it (parallel streams, CompletableFuture.supplyAsync...). The calling thread works on one chunk itself;
+// when the pool's queue is full it runs the other chunks too, so a burst slows callers down
+// instead of queueing without limit.
+@Service
+public class TokenIntrospectionService {
+
+    @Autowired
+    private JWTService jwtService;
+
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+//    Batches smaller than this are verified on the calling thread; splitting them costs more than it saves.
+//    It is also the smallest chunk a large batch is split into.
+    @Value("${introspection.parallel-threshold:64}")
+    private int parallelThreshold;
+
+//    Worker threads of the introspection pool; 0 = one per CPU core.
+    @Value("${introspection.threads:0}")
+    private int threads;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(size * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "token-introspection-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public TokenIntrospection[] introspect(List<String> tokens) {
+        TokenIntrospection[] results = new TokenIntrospection[tokens.size()];
+        long now = System.currentTimeMillis();
+        if (results.length < Math.max(2, parallelThreshold)) {
+            introspect(tokens, results, 0, results.length, now);
+            return results;
+        }
+
+//        At most one chunk per pool thread plus one for the caller, none smaller than parallelThreshold.
+        int chunks = Math.min(executor.getCorePoolSize() + 1, results.length / Math.max(1, parallelThreshold));
+        int chunkSize = (results.length + chunks - 1) / chunks;
+        List<Future<?>> futures = new ArrayList<>(chunks - 1);
+        for (int from = chunkSize; from < results.length; from += chunkSize) {
+            int start = from;
+            int end = Math.min(results.length, from + chunkSize);
+            futures.add(executor.submit(() -> introspect(tokens, results, start, end, now)));
+        }
+        introspect(tokens, results, 0, chunkSize, now);
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while introspecting tokens", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private void introspect(List<String> tokens, TokenIntrospection[] results, int from, int to, long now) {
+        for (int i = from; i < to; i++) {
+            results[i] = introspect(tokens.get(i), now);
+        }
+    }
+
+    private TokenIntrospection introspect(String token, long now) {
+        if (token == null || token.isEmpty()) {
+            return TokenIntrospection.INACTIVE;
+        }
+        VerifiedToken verified;
+        UserPrincipal principal;
+        try {
+            verified = jwtService.verify(token);
+            if (verified.subject() == null || verified.isExpired(now)) {
+                return TokenIntrospection.INACTIVE;
+            }
+            principal = principalCache.getPrincipal(verified.subject());
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException e) {
+//            Tampered, expired, malformed or for a user that no longer exists: simply not active.
+            return TokenIntrospection.INACTIVE;
+        }
+        return new TokenIntrospection(true, verified.subject(), verified.expiresAtMillis(), principal.getRoles());
+    }
+
+//    One result. roles is the Role bitset; authorities() gives the matching Spring Security authorities.
+    public record TokenIntrospection(boolean active, String subject, long expiresAtMillis, int roles) {
+
+        public static final TokenIntrospection INACTIVE = new TokenIntrospection(false, null, 0, 0);
+
+        public List<String> authorities() {
+            return Role.authoritiesOf(roles).stream().map(authority -> authority.getAuthority()).toList();
+        }
+    }
+}
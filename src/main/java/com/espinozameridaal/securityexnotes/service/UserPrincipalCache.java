@@ -0,0 +1,130 @@
+package com.espinozameridaal.securityexnotes.service;
+
+import com.espinozameridaal.securityexnotes.model.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+//UserPrincipalCache: Short-lived cache of principals for the JWT filter path.
+//
+//Without it every authenticated request does a database lookup, builds a new UserPrincipal and a new
+// UsernamePasswordAuthenticationToken. UserPrincipal is immutable, so one principal - and one fully
+// authenticated token wrapping it - can be shared by all requests of the same user until the entry expires.
+//
+//The servlet JwtFilter, the reactive ReactiveJwtFilter and token introspection use this. Login (/login, HTTP Basic) still loads the user from the database
+// through MyUserDetailsService, so a changed password takes effect there immediately.
+//
+//ttl: how long an entry is trusted (auth.principal-cache.ttl-ms). Role changes made directly in the
+// database become visible to the filter after at most this long.
+//max-size: when reached, expired entries are removed first; if that is not enough the oldest tenth of the
+// entries (by load time) goes. The cache is never cleared at once, which would send every active user
+// to the database at the same moment. Must be at least 1.
+@Component
+public class UserPrincipalCache {
+
+    private final MyUserDetailsService userDetailsService;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public UserPrincipalCache(MyUserDetailsService userDetailsService,
+                              @Value("${auth.principal-cache.ttl-ms:60000}") long ttlMillis,
+                              @Value("${auth.principal-cache.max-size:10000}") int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("auth.principal-cache.max-size must be at least 1, was " + maxSize);
+        }
+        this.userDetailsService = userDetailsService;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxSize = maxSize;
+    }
+
+//    Returns the cached principal, loading it through MyUserDetailsService on a miss or after expiry.
+//    Throws UsernameNotFoundException like loadUserByUsername; unknown users are not cached.
+    public UserPrincipal getPrincipal(String username) throws UsernameNotFoundException {
+        return entry(username).principal();
+    }
+
+//    An authenticated token for the user. It is shared between requests, so it is read-only:
+//    setDetails/setAuthenticated throw and eraseCredentials does nothing (see SharedAuthenticationToken).
+    public Authentication getAuthentication(String username) throws UsernameNotFoundException {
+        return entry(username).authentication();
+    }
+
+//    The cached token if there is a fresh entry, otherwise null. Never loads, so it never blocks:
+//    ReactiveJwtFilter calls it on the event loop and only goes to blockingScheduler on a miss.
+    public Authentication getCachedAuthentication(String username) {
+        Entry entry = entries.get(username);
+        return entry != null && System.nanoTime() - entry.loadedAt() < ttlNanos ? entry.authentication() : null;
+    }
+
+    public void evict(String username) {
+        entries.remove(username);
+    }
+
+    private Entry entry(String username) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(username);
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            return entry;
+        }
+        UserPrincipal principal = (UserPrincipal) userDetailsService.loadUserByUsername(username);
+        entry = new Entry(principal, new SharedAuthenticationToken(principal, principal.getAuthorities()), now);
+        if (entries.size() >= maxSize) {
+            makeRoom(now);
+        }
+        entries.put(username, entry);
+        return entry;
+    }
+
+//    Synchronized so that concurrent misses on a full cache don't all scan it; whoever comes second
+//    usually finds there is room again.
+    private synchronized void makeRoom(long now) {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        entries.values().removeIf(entry -> now - entry.loadedAt() >= ttlNanos);
+        if (entries.size() < maxSize) {
+            return;
+        }
+//        Everything is fresh: drop the tenth of the entries that was loaded longest ago.
+        long[] loadedAt = entries.values().stream().mapToLong(Entry::loadedAt).toArray();
+        Arrays.sort(loadedAt);
+        long cutoff = loadedAt[Math.min(loadedAt.length - 1, Math.max(1, loadedAt.length / 10) - 1)];
+        entries.values().removeIf(entry -> entry.loadedAt() <= cutoff);
+    }
+
+    private record Entry(UserPrincipal principal, Authentication authentication, long loadedAt) {
+    }
+
+//    The token handed to every request of one user. Still a UsernamePasswordAuthenticationToken for
+//    code that checks the type, but nothing can change it: one request attaching its details or erasing
+//    credentials would otherwise show up in every other request of that user.
+    static final class SharedAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+        SharedAuthenticationToken(UserPrincipal principal, Collection<? extends GrantedAuthority> authorities) {
+            super(principal, null, authorities);
+        }
+
+        @Override
+        public void setDetails(Object details) {
+            throw new UnsupportedOperationException("Shared authentication token is read-only");
+        }
+
+        @Override
+        public void setAuthenticated(boolean authenticated) {
+            throw new UnsupportedOperationException("Shared authentication token is read-only");
+        }
+
+//        There are no credentials to erase (always null), and the principal is immutable.
+        @Override
+        public void eraseCredentials() {
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package com.espinozameridaal.securityexnotes.service;
 
+import com.espinozameridaal.securityexnotes.audit.AuthAuditLog;
+import com.espinozameridaal.securityexnotes.audit.AuthEventType;
+import com.espinozameridaal.securityexnotes.model.Role;
 import com.espinozameridaal.securityexnotes.model.Users;
+import com.espinozameridaal.securityexnotes.profiling.ProfiledPasswordEncoder;
 import com.espinozameridaal.securityexnotes.repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Service;
 
 @Service
+//Needs the servlet AuthenticationManager from SecurityConfig; ReactiveUserService replaces it on the reactive stack.
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserService {
 //    UserRepo userRepo:
 //    The UserRepo is the repository interface for interacting
@@ -24,7 +33,8 @@ public class UserService {
 
 //    BCryptPasswordEncoder encoder: The password encoder is used to hash and verify user passwords securely.
 //    Here, it’s instantiated with a strength of 12 (recommended for good security without excessive computational cost).
-    private BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
+//    Wrapped in a ProfiledPasswordEncoder so every hash shows up as a JFR PasswordHashEvent.
+    private PasswordEncoder encoder = new ProfiledPasswordEncoder(new BCryptPasswordEncoder(12));
 
 //    AuthenticationManager authenticationManager:
 //    The AuthenticationManager is provided by Spring Security and handles the process of authenticating
@@ -32,6 +42,15 @@ public class UserService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+//    AuthAuditLog auditLog: Records registrations and login outcomes.
+//    record(...) only queues the event, the disk write happens on a background thread.
+    @Autowired
+    private AuthAuditLog auditLog;
+
+//    UserPrincipalCache principalCache: Registering over an existing username must not leave its old principal cached.
+    @Autowired
+    private UserPrincipalCache principalCache;
+
 //    This method handles user registration by taking a Users object, encoding the password, and saving the user to the database.
 //
 //Password Encoding:
@@ -43,7 +62,12 @@ public class UserService {
 // The method returns the saved Users object, which now has a hashed password.
     public Users register(Users user) {
         user.setPassword(encoder.encode(user.getPassword()));
-        return userRepo.save(user);
+//        New accounts are always plain users, whatever roles the request body contained; admins are granted in the database.
+        user.setRoles(Role.USER.bit());
+        Users saved = userRepo.save(user);
+        principalCache.evict(saved.getUsername());
+        auditLog.record(AuthEventType.REGISTERED, saved.getUsername(), null);
+        return saved;
     }
 //The verify method is responsible for authenticating the user’s credentials and generating
 // a JWT token if authentication is successful.
@@ -61,12 +85,21 @@ public class UserService {
 // This can be used by the controller to handle unsuccessful login attempts.
 
     public String verify(Users user) {
-        Authentication authentication =
-                authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(user.getUsername(),user.getPassword()));
+        Authentication authentication;
+        try {
+            authentication =
+                    authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(user.getUsername(),user.getPassword()));
+        } catch (AuthenticationException e) {
+//            Bad credentials (or a locked/disabled account) surface as an exception: audit it and let it propagate as before.
+            auditLog.record(AuthEventType.LOGIN_FAILURE, user.getUsername(), e.getClass().getSimpleName());
+            throw e;
+        }
 
         if (authentication.isAuthenticated()) {
+            auditLog.record(AuthEventType.LOGIN_SUCCESS, user.getUsername(), null);
             return jwtService.generateToken(user.getUsername());
         }
+        auditLog.record(AuthEventType.LOGIN_FAILURE, user.getUsername(), "not authenticated");
         return "fail";
     }
 
@@ -0,0 +1,13 @@
+package com.espinozameridaal.securityexnotes.service;
+
+//The result of JWTService.verify: the claims this application uses, from a token whose signature checked out.
+//
+//subject: the username (the "sub" claim).
+//issuedAtMillis / expiresAtMillis: "iat" and "exp" as epoch milliseconds.
+// A token without "iat" reports 0, a token without "exp" reports Long.MAX_VALUE (never expires).
+public record VerifiedToken(String subject, long issuedAtMillis, long expiresAtMillis) {
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis < nowMillis;
+    }
+}
@@ -0,0 +1,157 @@
+package com.espinozameridaal.securityexnotes.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//Write -> read round trips of the audit log: AuthAuditLog writes segments into a temp directory,
+// AuditLogReader reads them back.
+class AuthAuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEvents() throws IOException {
+        AuthAuditLog log = start(1 << 20, 8);
+        log.record(AuthEventType.REGISTERED, "bob", null);
+        log.record(AuthEventType.LOGIN_SUCCESS, "bob", null);
+        log.record(AuthEventType.LOGIN_FAILURE, "ünïcødé", "BadCredentialsException");
+        log.record(AuthEventType.TOKEN_REJECTED, null, "SignatureException");
+        log.stop();
+
+        List<AuthEvent> events = readAll();
+        assertEquals(4, events.size());
+        assertEquals(new AuthEvent(AuthEventType.REGISTERED, events.get(0).timestamp(), "bob", null), events.get(0));
+        assertEquals(AuthEventType.LOGIN_SUCCESS, events.get(1).type());
+        assertEquals("ünïcødé", events.get(2).username());
+        assertEquals("BadCredentialsException", events.get(2).detail());
+        assertNull(events.get(3).username());
+        assertEquals(4, log.getWrittenCount());
+        assertEquals(0, log.getDroppedCount());
+    }
+
+    @Test
+    void rotatesAndKeepsOnlyTheNewestSegments() throws IOException {
+//        Smallest allowed segment: about 50 of these records fit in one, so 2000 events rotate ~40 times.
+        AuthAuditLog log = start(AuditLogFormat.HEADER_SIZE + AuditLogFormat.MAX_RECORD_SIZE, 3);
+        for (int i = 0; i < 2000; i++) {
+            log.record(AuthEventType.LOGIN_SUCCESS, "user-" + i, null);
+        }
+        log.stop();
+
+        assertEquals(2000, log.getWrittenCount());
+        assertEquals(0, log.getDroppedCount());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(3, files.filter(AuthAuditLog::isSegment).count());
+        }
+
+//        What is left is the newest events, contiguous and in order, ending with the last one.
+        List<AuthEvent> events = readAll();
+        assertTrue(events.size() > 50 && events.size() < 2000, "kept " + events.size());
+        int first = 2000 - events.size();
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals("user-" + (first + i), events.get(i).username());
+        }
+    }
+
+    @Test
+    void writesOversizedStringsTruncated() throws IOException {
+        AuthAuditLog log = start(1 << 16, 2);
+        log.record(AuthEventType.USER_NOT_FOUND, "x".repeat(2000), "é".repeat(1000));
+        log.stop();
+
+        AuthEvent event = readAll().get(0);
+        assertEquals("x".repeat(AuditLogFormat.MAX_STRING_BYTES), event.username());
+        assertEquals("é".repeat(AuditLogFormat.MAX_STRING_BYTES / 2), event.detail());
+    }
+
+    @Test
+    void truncatesOnCharacterBoundaries() {
+//        "a" + 2-byte characters: byte 512 is the middle of a character, which must not be kept half.
+        byte[] twoByte = AuditLogFormat.encodeString("a" + "é".repeat(400));
+        assertEquals(AuditLogFormat.MAX_STRING_BYTES - 1, twoByte.length);
+        assertEquals("a" + "é".repeat(255), new String(twoByte, StandardCharsets.UTF_8));
+
+//        4-byte characters (surrogate pairs in Java): 512 is a multiple of 4, nothing to back up.
+        byte[] fourByte = AuditLogFormat.encodeString("😀".repeat(200));
+        assertArrayEquals("😀".repeat(128).getBytes(StandardCharsets.UTF_8), fourByte);
+        byte[] shifted = AuditLogFormat.encodeString("ab" + "😀".repeat(200));
+        assertEquals("ab" + "😀".repeat(127), new String(shifted, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readerStopsAtTheEndOfWrittenData() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        AuditLogFormat.writeRecord(buffer, new AuthEvent(AuthEventType.LOGIN_SUCCESS, 42, "bob", null),
+                AuditLogFormat.encodeString("bob"), AuditLogFormat.encodeString(null));
+        buffer.flip();
+        buffer.limit(64);
+        assertEquals(new AuthEvent(AuthEventType.LOGIN_SUCCESS, 42, "bob", null), AuditLogFormat.readRecord(buffer));
+        assertNull(AuditLogFormat.readRecord(buffer));
+    }
+
+    @Test
+    void readerSkipsBrokenSegmentsInADirectory() throws IOException {
+        AuthAuditLog log = start(1 << 16, 8);
+        log.record(AuthEventType.LOGIN_SUCCESS, "bob", null);
+        log.stop();
+//        What a crash between creating and mapping a segment leaves behind, and a file that isn't a segment.
+        Path empty = Files.createFile(dir.resolve(AuditLogFormat.FILE_PREFIX + "0000000000001" + AuditLogFormat.FILE_SUFFIX));
+        Files.write(dir.resolve(AuditLogFormat.FILE_PREFIX + "0000000000002" + AuditLogFormat.FILE_SUFFIX), new byte[64]);
+
+        List<AuthEvent> events = new ArrayList<>();
+        List<String> skipped = AuditLogReader.read(dir, events::add);
+        assertEquals(1, events.size());
+        assertEquals(List.of(
+                empty.getFileName() + ": Empty file",
+                AuditLogFormat.FILE_PREFIX + "0000000000002" + AuditLogFormat.FILE_SUFFIX + ": Not an auth audit segment"), skipped);
+
+//        Asked for explicitly, a broken file is still an error.
+        assertThrows(IOException.class, () -> AuditLogReader.read(empty, events::add));
+    }
+
+    @Test
+    void rejectsSegmentsSmallerThanTheLargestRecord() {
+        AuthAuditLog log = configure(200, 2);
+        assertThrows(IllegalArgumentException.class, log::start);
+    }
+
+    private AuthAuditLog start(int segmentSize, int maxSegments) throws IOException {
+        AuthAuditLog log = configure(segmentSize, maxSegments);
+        log.start();
+        return log;
+    }
+
+    private AuthAuditLog configure(int segmentSize, int maxSegments) {
+        AuthAuditLog log = new AuthAuditLog();
+        ReflectionTestUtils.setField(log, "directory", dir.toString());
+        ReflectionTestUtils.setField(log, "queueCapacity", 65536);
+        ReflectionTestUtils.setField(log, "batchSize", 64);
+        ReflectionTestUtils.setField(log, "segmentSize", segmentSize);
+        ReflectionTestUtils.setField(log, "maxSegments", maxSegments);
+        ReflectionTestUtils.setField(log, "flushIntervalMs", 10L);
+        return log;
+    }
+
+    private List<AuthEvent> readAll() throws IOException {
+        List<AuthEvent> events = new ArrayList<>();
+        AuditLogReader.read(dir, events::add);
+        return events;
+    }
+}
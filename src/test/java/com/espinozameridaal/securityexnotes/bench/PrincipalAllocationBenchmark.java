@@ -0,0 +1,86 @@
+package com.espinozameridaal.securityexnotes.bench;
+
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.model.UserPrincipal;
+import com.espinozameridaal.securityexnotes.model.Users;
+import com.espinozameridaal.securityexnotes.service.MyUserDetailsService;
+import com.espinozameridaal.securityexnotes.service.UserPrincipalCache;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+
+//Measures the garbage the JWT filter creates per request to authenticate the user, before and after
+// the shared principal/authority model. Not a unit test, run main() by hand.
+//
+//before: what JwtFilter used to do per request - a new UserPrincipal, a new SimpleGrantedAuthority
+//        singleton, a new UsernamePasswordAuthenticationToken and new WebAuthenticationDetails.
+//after:  JwtFilter today - one UserPrincipalCache lookup returning the shared token.
+//
+//The database lookup the old path also did per request is left out (a canned Users is returned),
+//so the "before" numbers are a lower bound.
+public class PrincipalAllocationBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Object sink;
+
+    public static void main(String[] args) {
+        Users user = new Users();
+        user.setUsername("bob");
+        user.setPassword("$2a$12$abcdefghijklmnopqrstuuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01");
+        user.setRoles(Role.USER.bit());
+
+        MyUserDetailsService loader = new MyUserDetailsService() {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                return new UserPrincipal(user);
+            }
+        };
+        UserPrincipalCache cache = new UserPrincipalCache(loader, 60_000, 10_000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/applications");
+        request.setRemoteAddr("10.0.0.1");
+
+        Runnable before = () -> {
+            UserPrincipal principal = new UserPrincipal(user);
+            Collection<? extends GrantedAuthority> authorities = Collections.singleton(new SimpleGrantedAuthority("USER"));
+            UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+            token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            sink = token;
+        };
+        Runnable after = () -> {
+            Authentication token = cache.getAuthentication("bob");
+            sink = token;
+        };
+
+        report("before", before);
+        report("after", after);
+    }
+
+    private static void report(String name, Runnable path) {
+        for (int i = 0; i < WARMUP; i++) {
+            path.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            path.run();
+        }
+        long took = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-7s %8.1f bytes/request %8.1f ns/request%n", name,
+                allocated / (double) ITERATIONS, took / (double) ITERATIONS);
+    }
+}
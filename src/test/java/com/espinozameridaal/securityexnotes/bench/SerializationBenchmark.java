@@ -0,0 +1,99 @@
+package com.espinozameridaal.securityexnotes.bench;
+
+import com.espinozameridaal.securityexnotes.dto.JobApplicationResponse;
+import com.espinozameridaal.securityexnotes.dto.UserResponse;
+import com.espinozameridaal.securityexnotes.model.JobApplication;
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.model.Users;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+//Serialization throughput and bytes on the wire for controller responses, before and after the
+// DTO + Blackbird changes. Not a unit test, run main() by hand.
+//
+//before: default ObjectMapper, reflective serialization of the model classes
+//        (List<JobApplication> for /applications, the Users entity - password hash included - for /register).
+//after:  ObjectMapper as configured by JacksonConfig (Blackbird, NON_NULL) and the response records
+//        (List<JobApplicationResponse>, UserResponse), written as a whole like the controllers return them.
+//
+//Bytes are reported raw and gzipped (server.compression).
+//
+//Each case gets WARMUP_RUNS untimed runs, then RUNS timed runs; the median and the min..max range
+// of the runs are printed. A difference smaller than the range is noise, not a result.
+public class SerializationBenchmark {
+
+    private static final int LIST_SIZE = 10_000;
+    private static final int ROUNDS = 50;
+    private static final int USER_ROUNDS = 500_000;
+    private static final int WARMUP_RUNS = 10;
+    private static final int RUNS = 15;
+
+    public static void main(String[] args) throws IOException {
+        List<JobApplication> applications = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            applications.add(new JobApplication("Company " + i, "Position " + (i % 37)));
+        }
+        List<JobApplicationResponse> responses = applications.stream().map(JobApplicationResponse::from).toList();
+
+        Users user = new Users();
+        user.setId(42);
+        user.setUsername("bob");
+        user.setPassword("$2a$12$5/Ki0dX6rOWAuue/4HGX.uMgjTNd/3TjH8fkwKULwKv0I9LGSyLaa");
+        user.setRoles(Role.USER.bit());
+
+        ObjectMapper before = new ObjectMapper();
+        ObjectMapper after = new ObjectMapper()
+                .registerModule(new BlackbirdModule())
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        System.out.printf("%-22s %12s %25s %12s %12s%n", "", "median ops/s", "range", "bytes", "gzip bytes");
+        measure("applications before", ROUNDS, out -> before.writeValue(out, applications));
+        measure("applications after", ROUNDS, out -> after.writeValue(out, responses));
+        measure("register before", USER_ROUNDS, out -> before.writeValue(out, user));
+        measure("register after", USER_ROUNDS, out -> after.writeValue(out, UserResponse.from(user)));
+    }
+
+    private interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static void measure(String name, int rounds, Body body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+//        Warm-up: enough runs for the JIT (and Blackbird's generated accessors) to settle.
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            run(out, rounds, body);
+        }
+        double[] opsPerSecond = new double[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            opsPerSecond[run] = rounds / run(out, rounds, body);
+        }
+        Arrays.sort(opsPerSecond);
+
+        byte[] raw = out.toByteArray();
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(zipped)) {
+            gzip.write(raw);
+        }
+        System.out.printf("%-22s %12.0f %25s %12d %12d%n", name, opsPerSecond[RUNS / 2],
+                String.format("%.0f..%.0f", opsPerSecond[0], opsPerSecond[RUNS - 1]), raw.length, zipped.size());
+    }
+
+//    Seconds taken by `rounds` writes.
+    private static double run(ByteArrayOutputStream out, int rounds, Body body) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            out.reset();
+            body.writeTo(out);
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+}
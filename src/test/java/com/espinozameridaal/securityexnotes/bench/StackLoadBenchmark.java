@@ -0,0 +1,109 @@
+package com.espinozameridaal.securityexnotes.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Side-by-side load test of the servlet stack and the reactive stack at high connection counts.
+//Not a unit test (surefire ignores it), run it by hand against two running instances:
+//
+//  1. Start the servlet stack:   java -jar app.jar                                   (port 8080)
+//  2. Start the reactive stack:  java -jar app.jar --spring.profiles.active=reactive (port 8081)
+//  3. Register a user and /login once on EACH instance: JWTService generates its signing key at startup,
+//     so a token is only accepted by the instance that issued it.
+//  4. Run this class with:
+//       <path> <connections> <seconds> servlet=http://localhost:8080,<token> reactive=http://localhost:8081,<token>
+//     e.g. /applications 2000 30 servlet=http://localhost:8080,eyJhbGciOi... reactive=http://localhost:8081,eyJhbGciOi...
+//
+//Every target gets the same closed-loop load: <connections> requests in flight at all times,
+//each carrying "Authorization: Bearer <token>", so the whole JWT chain (filter, token check,
+//user lookup) is exercised. Prints throughput, errors and latency percentiles per target.
+public class StackLoadBenchmark {
+
+//    Latency histogram buckets of 100 microseconds, up to 10 seconds.
+    private static final int BUCKET_MICROS = 100;
+    private static final int BUCKETS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("usage: <path> <connections> <seconds> name=baseUrl,token [name=baseUrl,token ...]");
+            System.exit(1);
+        }
+        String path = args[0];
+        int connections = Integer.parseInt(args[1]);
+        int seconds = Integer.parseInt(args[2]);
+
+        System.out.printf("%-10s %10s %10s %8s %8s %8s %8s%n", "stack", "requests", "req/s", "errors", "p50 ms", "p99 ms", "max ms");
+        for (String target : Arrays.copyOfRange(args, 3, args.length)) {
+            String[] nameAndUrl = target.split("=", 2);
+            String[] urlAndToken = nameAndUrl[1].split(",", 2);
+            URI uri = URI.create(urlAndToken[0] + path);
+            String token = urlAndToken[1];
+//            Short warm-up so both stacks are measured with JIT-compiled code.
+            run(uri, token, connections, Math.max(5, seconds / 5));
+            Result result = run(uri, token, connections, seconds);
+            System.out.printf("%-10s %10d %10.0f %8d %8.2f %8.2f %8.2f%n", nameAndUrl[0], result.requests,
+                    result.requests / (double) seconds, result.errors, result.percentile(0.50), result.percentile(0.99), result.maxMillis);
+        }
+    }
+
+    private static Result run(URI uri, String token, int connections, int seconds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        Semaphore inFlight = new Semaphore(connections);
+        AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong requests = new AtomicLong();
+        AtomicLong maxNanos = new AtomicLong();
+
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < end) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long took = System.nanoTime() - start;
+                if (failure != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                } else {
+                    requests.incrementAndGet();
+                    histogram.incrementAndGet((int) Math.min(BUCKETS - 1, TimeUnit.NANOSECONDS.toMicros(took) / BUCKET_MICROS));
+                    maxNanos.accumulateAndGet(took, Math::max);
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(connections);
+        return new Result(requests.get(), errors.get(), histogram, maxNanos.get() / 1_000_000.0);
+    }
+
+    private record Result(long requests, int errors, AtomicLongArray histogram, double maxMillis) {
+
+        double percentile(double p) {
+            long target = (long) Math.ceil(requests * p);
+            long seen = 0;
+            for (int i = 0; i < histogram.length(); i++) {
+                seen += histogram.get(i);
+                if (seen >= target) {
+                    return (i + 1) * BUCKET_MICROS / 1000.0;
+                }
+            }
+            return maxMillis;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.espinozameridaal.securityexnotes.bench;
+
+import com.espinozameridaal.securityexnotes.model.Student;
+import com.espinozameridaal.securityexnotes.roster.GradeHistogram;
+import com.espinozameridaal.securityexnotes.roster.StudentBatch;
+import com.espinozameridaal.securityexnotes.roster.StudentStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+//Heap footprint and query latency of the columnar StudentStore against the obvious alternative,
+// a List<Student> queried with streams. Not a unit test, run main() by hand, e.g. with -Xmx1g.
+//
+//Both sides hold the same students (ids 0..n-1, marks 0..100, a few thousand distinct names) and
+// every query result is compared, so this doubles as a check of the fork-join analytics.
+public class StudentStoreBenchmark {
+
+    private static final int STUDENTS = 5_000_000;
+    private static final int DISTINCT_NAMES = 5_000;
+    private static final int ROUNDS = 20;
+    private static final double[] PERCENTILES = {0, 25, 50, 90, 99, 100};
+
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : STUDENTS;
+        SplittableRandom random = new SplittableRandom(42);
+        int[] marks = new int[students];
+        for (int i = 0; i < students; i++) {
+            marks[i] = random.nextInt(101);
+        }
+
+//        Names are created per student, as a parser would: equal names are different String instances.
+        long before = usedHeap();
+        List<Student> list = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            list.add(new Student(i, "Student " + (i % DISTINCT_NAMES), marks[i]));
+        }
+        long listBytes = usedHeap() - before;
+
+        before = usedHeap();
+        StudentStore store = new StudentStore();
+        store.start();
+        long start = System.nanoTime();
+        StudentBatch batch = new StudentBatch(students);
+        for (int i = 0; i < students; i++) {
+            batch.add(i, "Student " + (i % DISTINCT_NAMES), marks[i]);
+        }
+        store.load(batch, false);
+        double loadMillis = (System.nanoTime() - start) / 1e6;
+        batch = null;
+        long storeBytes = usedHeap() - before;
+
+        System.out.printf("%,d students%n", students);
+        System.out.printf("%-28s %,14d bytes (%.1f per student)%n", "heap List<Student>", listBytes, (double) listBytes / students);
+        System.out.printf("%-28s %,14d bytes (%.1f per student), loaded in %.0f ms%n", "heap StudentStore", storeBytes,
+                (double) storeBytes / students, loadMillis);
+        System.out.println();
+
+        check("top 100", topOfList(list, 100), store.top(100));
+        check("percentiles", percentilesOfList(list, PERCENTILES), store.percentiles(PERCENTILES));
+        check("histogram", histogramOfList(list, 10), counts(store.histogram(10)));
+
+        System.out.printf("%-28s %12s %12s%n", "", "list ms", "store ms");
+        measure("top 100", () -> topOfList(list, 100), () -> store.top(100));
+        measure("percentiles", () -> percentilesOfList(list, PERCENTILES), () -> store.percentiles(PERCENTILES));
+        measure("histogram width 10", () -> histogramOfList(list, 10), () -> store.histogram(10));
+    }
+
+    private static List<Integer> topOfList(List<Student> list, int n) {
+        return list.parallelStream()
+                .sorted(Comparator.comparingInt(Student::getMarks).reversed().thenComparingInt(Student::getId))
+                .limit(n)
+                .map(Student::getId)
+                .toList();
+    }
+
+    private static int[] percentilesOfList(List<Student> list, double[] percentiles) {
+        List<Integer> sorted = list.parallelStream().map(Student::getMarks).sorted().toList();
+        int[] values = new int[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[i] / 100 * sorted.size()));
+            values[i] = sorted.get((int) rank - 1);
+        }
+        return values;
+    }
+
+    private static int[] histogramOfList(List<Student> list, int width) {
+        int min = list.stream().mapToInt(Student::getMarks).min().orElseThrow();
+        int max = list.stream().mapToInt(Student::getMarks).max().orElseThrow();
+        int start = Math.floorDiv(min, width) * width;
+        int[] counts = new int[(max - start) / width + 1];
+        list.forEach(student -> counts[(student.getMarks() - start) / width]++);
+        return counts;
+    }
+
+    private static int[] counts(GradeHistogram histogram) {
+        return histogram.buckets().stream().mapToInt(GradeHistogram.Bucket::count).toArray();
+    }
+
+    private static void check(String name, Object expected, Object actual) {
+        if (actual instanceof List<?> students && !students.isEmpty() && students.get(0) instanceof Student) {
+            actual = students.stream().map(student -> ((Student) student).getId()).toList();
+        }
+        boolean same = expected instanceof int[] e ? Arrays.equals(e, (int[]) actual) : expected.equals(actual);
+        if (!same) {
+            throw new AssertionError(name + " differs");
+        }
+    }
+
+    private static void measure(String name, Runnable list, Runnable store) {
+        System.out.printf("%-28s %12.2f %12.2f%n", name, millis(list), millis(store));
+    }
+
+//    Average over ROUNDS runs, after the same number of warm-up runs.
+    private static double millis(Runnable query) {
+        for (int i = 0; i < ROUNDS; i++) {
+            query.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / ROUNDS;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
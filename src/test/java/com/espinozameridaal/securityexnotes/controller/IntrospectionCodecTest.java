@@ -0,0 +1,152 @@
+package com.espinozameridaal.securityexnotes.controller;
+
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService.TokenIntrospection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+//The /introspect wire formats: request parsing (including the 400/413 cases) and the exact response layout.
+class IntrospectionCodecTest {
+
+    private static final long EXP = 1792499052000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final TokenIntrospection[] results = {
+            new TokenIntrospection(true, "bob", EXP, Role.USER.bit()),
+            TokenIntrospection.INACTIVE,
+            new TokenIntrospection(true, "ünï", EXP + 1, Role.mask(Role.USER, Role.ADMIN)),
+    };
+
+    @Test
+    void readsNdjsonRawAndQuotedTokens() {
+        String body = "eyJ.raw.token\n\n  \"eyJ.quoted\\u002etoken\"  \r\n\"with \\\"escape\\\"\"\n   \n";
+        assertEquals(List.of("eyJ.raw.token", "eyJ.quoted.token", "with \"escape\""),
+                IntrospectionCodec.readNdjson(bytes(body), objectMapper, 10));
+        assertEquals(List.of(), IntrospectionCodec.readNdjson(new byte[0], objectMapper, 10));
+    }
+
+    @Test
+    void rejectsMalformedQuotedNdjsonLine() {
+        assertStatus(HttpStatus.BAD_REQUEST, () -> IntrospectionCodec.readNdjson(bytes("ok\n\"unterminated\n"), objectMapper, 10));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> IntrospectionCodec.readNdjson(bytes("\"a\" \"b\""), objectMapper, 10));
+    }
+
+    @Test
+    void limitsNdjsonBatchSize() {
+        assertEquals(3, IntrospectionCodec.readNdjson(bytes("a\nb\nc\n"), objectMapper, 3).size());
+        assertStatus(HttpStatus.PAYLOAD_TOO_LARGE, () -> IntrospectionCodec.readNdjson(bytes("a\nb\nc\nd"), objectMapper, 3));
+    }
+
+    @Test
+    void writesNdjsonOneObjectPerLine() {
+        assertEquals("""
+                        {"active":true,"sub":"bob","exp":1792499052000,"authorities":["ROLE_USER"]}
+                        {"active":false}
+                        {"active":true,"sub":"ünï","exp":1792499052001,"authorities":["ROLE_USER","ROLE_ADMIN"]}
+                        """,
+                new String(IntrospectionCodec.writeNdjson(results, objectMapper), StandardCharsets.UTF_8));
+        assertEquals(0, IntrospectionCodec.writeNdjson(new TokenIntrospection[0], objectMapper).length);
+    }
+
+    @Test
+    void readsBinaryLengthPrefixedFrames() {
+//        A 300 character token needs both bytes of the u16 length; an empty frame is an empty token.
+        String longToken = "x".repeat(300);
+        byte[] body = frames("eyJ.a.b", longToken, "");
+        assertEquals(List.of("eyJ.a.b", longToken, ""), IntrospectionCodec.readBinary(body, 10));
+        assertEquals(List.of(), IntrospectionCodec.readBinary(new byte[0], 10));
+    }
+
+    @Test
+    void rejectsTruncatedBinaryFrames() {
+        byte[] body = frames("eyJ.a.b", "second");
+//        Cut inside the second token, and inside the second length prefix.
+        assertStatus(HttpStatus.BAD_REQUEST, () -> IntrospectionCodec.readBinary(Arrays.copyOf(body, body.length - 1), 10));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> IntrospectionCodec.readBinary(Arrays.copyOf(body, 2 + 7 + 1), 10));
+    }
+
+    @Test
+    void limitsBinaryBatchSize() {
+        assertEquals(2, IntrospectionCodec.readBinary(frames("a", "b"), 2).size());
+        assertStatus(HttpStatus.PAYLOAD_TOO_LARGE, () -> IntrospectionCodec.readBinary(frames("a", "b", "c"), 2));
+    }
+
+    @Test
+    void writesBinaryResponseLayout() {
+        ByteBuffer in = ByteBuffer.wrap(IntrospectionCodec.writeBinary(results));
+
+        assertEquals(1, in.get());
+        assertEquals(EXP, in.getLong());
+        assertEquals(Role.USER.bit(), in.getInt());
+        assertEquals("bob", string(in, Short.toUnsignedInt(in.getShort())));
+
+        assertEquals(0, in.get());
+
+        assertEquals(1, in.get());
+        assertEquals(EXP + 1, in.getLong());
+        assertEquals(Role.mask(Role.USER, Role.ADMIN), in.getInt());
+//        The length is in UTF-8 bytes, not characters.
+        assertEquals(5, Short.toUnsignedInt(in.getShort()));
+        assertEquals("ünï", string(in, 5));
+
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void rejectsSubjectsTooLongForTheU16Length() {
+        String longest = "x".repeat(IntrospectionCodec.MAX_SUBJECT_BYTES);
+        ByteBuffer in = ByteBuffer.wrap(IntrospectionCodec.writeBinary(new TokenIntrospection[]{
+                new TokenIntrospection(true, longest, EXP, Role.USER.bit())}));
+        in.position(1 + 8 + 4);
+        assertEquals(65535, Short.toUnsignedInt(in.getShort()));
+
+//        One byte more would have been written as a length of 0, followed by 65536 "garbage" bytes.
+        TokenIntrospection[] tooLong = {new TokenIntrospection(true, longest + "x", EXP, Role.USER.bit())};
+        assertStatus(HttpStatus.INTERNAL_SERVER_ERROR, () -> IntrospectionCodec.writeBinary(tooLong));
+//        The limit is in UTF-8 bytes: 32768 two-byte characters are 65536 bytes.
+        TokenIntrospection[] tooLongUtf8 = {new TokenIntrospection(true, "ü".repeat(32768), EXP, Role.USER.bit())};
+        assertStatus(HttpStatus.INTERNAL_SERVER_ERROR, () -> IntrospectionCodec.writeBinary(tooLongUtf8));
+    }
+
+    @Test
+    void limitsBodySize() {
+        IntrospectionCodec.checkBodySize(-1, 10);
+        IntrospectionCodec.checkBodySize(10, 10);
+        assertStatus(HttpStatus.PAYLOAD_TOO_LARGE, () -> IntrospectionCodec.checkBodySize(11, 10));
+    }
+
+    private static byte[] frames(String... tokens) {
+        ByteBuffer out = ByteBuffer.allocate(4096);
+        for (String token : tokens) {
+            out.putShort((short) token.length());
+            out.put(token.getBytes(StandardCharsets.US_ASCII));
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private static String string(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void assertStatus(HttpStatus status, Runnable call) {
+        assertEquals(status, assertThrows(ResponseStatusException.class, call::run).getStatusCode());
+    }
+}
@@ -0,0 +1,116 @@
+package com.espinozameridaal.securityexnotes.controller;
+
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService;
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService.TokenIntrospection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+//introspection.max-body-bytes on the servlet controller: a body over the limit is 413 and never reaches
+// the service, whether its size is declared (Content-Length) or only found out while reading (chunked).
+class TokenIntrospectionControllerTest {
+
+    private static final int MAX_BODY_BYTES = 16;
+
+    private final TokenIntrospectionService introspectionService = mock(TokenIntrospectionService.class);
+    private final TokenIntrospectionController controller = new TokenIntrospectionController();
+
+    TokenIntrospectionControllerTest() {
+        ReflectionTestUtils.setField(controller, "introspectionService", introspectionService);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "maxBatchSize", 1000);
+        ReflectionTestUtils.setField(controller, "maxBodyBytes", MAX_BODY_BYTES);
+        when(introspectionService.introspect(anyList())).thenAnswer(call -> {
+            List<String> tokens = call.getArgument(0);
+            TokenIntrospection[] results = new TokenIntrospection[tokens.size()];
+            Arrays.fill(results, TokenIntrospection.INACTIVE);
+            return results;
+        });
+    }
+
+    @Test
+    void acceptsBodyAtTheLimit() throws Exception {
+        MockHttpServletRequest request = request("a234567890\nb2345");
+        assertEquals("{\"active\":false}\n{\"active\":false}\n",
+                new String(controller.introspectNdjson(request).getBody(), StandardCharsets.UTF_8));
+        verify(introspectionService).introspect(List.of("a234567890", "b2345"));
+    }
+
+    @Test
+    void rejectsDeclaredContentLengthBeforeReading() {
+        MockHttpServletRequest request = request("a234567890\nb23456");
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE,
+                assertThrows(ResponseStatusException.class, () -> controller.introspectNdjson(request)).getStatusCode());
+        verifyNoInteractions(introspectionService);
+    }
+
+    @Test
+    void rejectsChunkedBodyOnePastTheLimit() throws Exception {
+//        No Content-Length: the limit is found while reading, after MAX_BODY_BYTES + 1 bytes.
+        CountingInputStream body = new CountingInputStream(new byte[1 << 20]);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/introspect") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return new DelegatingServletInputStream(body);
+            }
+        };
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE,
+                assertThrows(ResponseStatusException.class, () -> controller.introspectBinary(request)).getStatusCode());
+        assertEquals(MAX_BODY_BYTES + 1, body.read);
+        verifyNoInteractions(introspectionService);
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/introspect");
+        request.setContentType("application/x-ndjson");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static final class CountingInputStream extends InputStream {
+
+        private final ByteArrayInputStream in;
+        private int read;
+
+        CountingInputStream(byte[] bytes) {
+            this.in = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() {
+            int b = in.read();
+            if (b >= 0) {
+                read++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int n = in.read(buffer, offset, length);
+            if (n > 0) {
+                read += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.espinozameridaal.securityexnotes.dto;
+
+import com.espinozameridaal.securityexnotes.config.JacksonConfig;
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.model.Users;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+//The /register response as it goes over the wire: serialized with the mapper JacksonConfig sets up,
+// it must never carry the password hash.
+class UserResponseTest {
+
+    private final ObjectMapper objectMapper = responseMapper();
+
+    @Test
+    void registerJsonHasNoPasswordField() throws Exception {
+        Users user = new Users();
+        user.setId(42);
+        user.setUsername("bob");
+        user.setPassword("$2a$12$5/Ki0dX6rOWAuue/4HGX.uMgjTNd/3TjH8fkwKULwKv0I9LGSyLaa");
+        user.setRoles(Role.mask(Role.USER, Role.ADMIN));
+
+        String json = objectMapper.writeValueAsString(UserResponse.from(user));
+        JsonNode tree = objectMapper.readTree(json);
+
+        assertFalse(tree.has("password"));
+        assertFalse(json.contains("$2a$"));
+        assertEquals("{\"id\":42,\"username\":\"bob\",\"roles\":[\"USER\",\"ADMIN\"]}", json);
+    }
+
+    @Test
+    void rowsWithoutKnownRolesAreListedAsUsers() throws Exception {
+        Users user = new Users();
+        user.setId(7);
+        user.setUsername("legacy");
+        user.setPassword("secret");
+
+        assertEquals("{\"id\":7,\"username\":\"legacy\",\"roles\":[\"USER\"]}", objectMapper.writeValueAsString(UserResponse.from(user)));
+    }
+
+//    Same modules and inclusion as the ObjectMapper Spring Boot builds with JacksonConfig.
+    private static ObjectMapper responseMapper() {
+        JacksonConfig config = new JacksonConfig();
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder().modules(config.blackbirdModule());
+        config.responseMapperCustomizer().customize(builder);
+        return builder.build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.espinozameridaal.securityexnotes.model;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+//Role bitsets and the precomputed authority lists.
+class RoleTest {
+
+    @Test
+    void bitsFollowTheOrdinals() {
+        assertEquals(1, Role.USER.bit());
+        assertEquals(2, Role.ADMIN.bit());
+        assertEquals(4, Role.GATEWAY.bit());
+        assertEquals(0b101, Role.mask(Role.USER, Role.GATEWAY));
+        assertEquals(0, Role.mask());
+    }
+
+    @Test
+    void authoritiesAreListedInRoleOrder() {
+        assertEquals(authorities("ROLE_USER"), Role.authoritiesOf(Role.USER.bit()));
+        assertEquals(authorities("ROLE_ADMIN", "ROLE_GATEWAY"), Role.authoritiesOf(Role.mask(Role.GATEWAY, Role.ADMIN)));
+        assertEquals(authorities("ROLE_USER", "ROLE_ADMIN", "ROLE_GATEWAY"), Role.authoritiesOf(0b111));
+    }
+
+    @Test
+    void rowsWithoutKnownRolesAreUsers() {
+        assertEquals(Role.USER.bit(), Role.normalize(0));
+        assertEquals(authorities("ROLE_USER"), Role.authoritiesOf(0));
+//        Bits of roles that don't exist (yet) are ignored.
+        assertEquals(authorities("ROLE_USER"), Role.authoritiesOf(1 << 20));
+        assertEquals(authorities("ROLE_ADMIN"), Role.authoritiesOf(Role.ADMIN.bit() | 1 << 20));
+        assertEquals(authorities("ROLE_USER"), Role.authoritiesOf(-1 << Role.values().length));
+    }
+
+    @Test
+    void authorityListsAreSharedAndUnmodifiable() {
+        List<GrantedAuthority> admins = Role.authoritiesOf(Role.mask(Role.USER, Role.ADMIN));
+        assertSame(admins, Role.authoritiesOf(Role.mask(Role.USER, Role.ADMIN)));
+        assertSame(Role.ADMIN.getAuthority(), admins.get(1));
+        assertThrows(UnsupportedOperationException.class, () -> admins.add(Role.GATEWAY.getAuthority()));
+    }
+
+    private static List<GrantedAuthority> authorities(String... names) {
+        return List.of(names).stream().<GrantedAuthority>map(SimpleGrantedAuthority::new).toList();
+    }
+}
@@ -0,0 +1,196 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.SecurityExNotesApplication;
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.model.Users;
+import com.espinozameridaal.securityexnotes.repo.UserRepo;
+import com.espinozameridaal.securityexnotes.service.JWTService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//The reactive security chain over HTTP (ReactiveSecurityConfig + ReactiveJwtFilter), without MySQL:
+// the JPA auto-configuration is excluded and UserRepo is a mock backed by a map.
+//
+//Covers valid, tampered and unknown-user tokens, the role rules per path, and that the rest of the
+// chain runs exactly once whether or not the token authenticated.
+@SpringBootTest(classes = SecurityExNotesApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.main.web-application-type=reactive",
+                "spring.autoconfigure.exclude="
+                        + "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                        + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration,"
+                        + "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration",
+                "audit.directory=target/reactive-security-test/audit",
+                "profiling.directory=target/reactive-security-test/profiling"
+        })
+class ReactiveSecurityTest {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @MockBean
+    private UserRepo userRepo;
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private JWTService jwtService;
+
+    private final Map<String, Users> users = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void users() {
+        users.put("alice", user(1, "alice", Role.USER));
+        users.put("carol", user(2, "carol", Role.USER));
+        users.put("admin", user(3, "admin", Role.ADMIN));
+        users.put("gateway", user(4, "gateway", Role.GATEWAY));
+        when(userRepo.findByUsername(anyString())).thenAnswer(call -> users.get(call.<String>getArgument(0)));
+        when(userRepo.save(any(Users.class))).thenAnswer(call -> {
+            Users user = call.getArgument(0);
+            user.setId(100 + users.size());
+            users.put(user.getUsername(), user);
+            return user;
+        });
+    }
+
+    @Test
+    void validTokenReachesTheEndpoint() {
+        get("/applications", token("alice"))
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].companyName").exists();
+    }
+
+    @Test
+    void missingTokenIsUnauthorized() {
+        client.get().uri("/applications").exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void tamperedTokenIsUnauthorized() {
+        String token = token("alice");
+//        Same header and claims, one character of the signature changed.
+        int last = token.length() - 2;
+        String tampered = token.substring(0, last) + (token.charAt(last) == 'A' ? 'B' : 'A') + token.substring(last + 1);
+        get("/applications", tampered).expectStatus().isUnauthorized();
+        get("/applications", "not.a.jwt").expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void unknownUserIsUnauthorized() {
+        get("/applications", token("ghost")).expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void adminPathsNeedAdmin() {
+        get("/admin/profiling", token("alice")).expectStatus().isForbidden();
+        get("/admin/profiling", token("gateway")).expectStatus().isForbidden();
+        get("/admin/profiling", token("admin"))
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.state").exists();
+    }
+
+    @Test
+    void introspectNeedsGatewayOrAdmin() {
+        String body = token("alice") + "\n";
+        introspect(token("alice"), body).expectStatus().isForbidden();
+        introspect(token("gateway"), body)
+                .expectStatus().isOk()
+                .expectBody(String.class).value(response -> assertTrue(response.startsWith("{\"active\":true,\"sub\":\"alice\""), response));
+        introspect(token("admin"), body).expectStatus().isOk();
+    }
+
+    @Test
+    void applicationsNeedUserOrAdmin() {
+        get("/applications", token("admin")).expectStatus().isOk();
+        get("/applications", token("gateway")).expectStatus().isForbidden();
+    }
+
+    @Test
+    void cachedUserIsLoadedOnce() {
+        String token = token("carol");
+        for (int i = 0; i < 3; i++) {
+            get("/applications", token).expectStatus().isOk();
+        }
+        verify(userRepo, times(1)).findByUsername("carol");
+    }
+
+    @Test
+    void unauthenticatedRequestRunsTheChainOnce() {
+//        /register is public: with an unknown user's token the request goes on unauthenticated,
+//        and the user must be saved exactly once (a second chain run would save it twice).
+        client.post().uri("/register")
+                .header("Authorization", "Bearer " + token("ghost"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "erin", "password", "secret"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo("erin")
+                .jsonPath("$.roles[0]").isEqualTo("USER")
+                .jsonPath("$.password").doesNotExist();
+        verify(userRepo, times(1)).save(any(Users.class));
+    }
+
+    @Test
+    void loginChecksThePassword() {
+        client.post().uri("/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", "frank", "password", "secret"))
+                .exchange()
+                .expectStatus().isOk();
+
+        login("frank", "wrong").expectStatus().isUnauthorized();
+        String token = login("frank", "secret")
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+        get("/applications", token).expectStatus().isOk();
+    }
+
+    private String token(String username) {
+        return jwtService.generateToken(username);
+    }
+
+    private WebTestClient.ResponseSpec get(String path, String token) {
+        return client.get().uri(path).header("Authorization", "Bearer " + token).exchange();
+    }
+
+    private WebTestClient.ResponseSpec introspect(String token, String body) {
+        return client.post().uri("/introspect")
+                .header("Authorization", "Bearer " + token)
+                .contentType(NDJSON)
+                .bodyValue(body)
+                .exchange();
+    }
+
+    private WebTestClient.ResponseSpec login(String username, String password) {
+        return client.post().uri("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", username, "password", password))
+                .exchange();
+    }
+
+    private static Users user(int id, String username, Role role) {
+        Users user = new Users();
+        user.setId(id);
+        user.setUsername(username);
+        user.setPassword(new BCryptPasswordEncoder(4).encode("secret"));
+        user.setRoles(role.bit());
+        return user;
+    }
+}
@@ -0,0 +1,89 @@
+package com.espinozameridaal.securityexnotes.reactive;
+
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService;
+import com.espinozameridaal.securityexnotes.service.TokenIntrospectionService.TokenIntrospection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+//introspection.max-body-bytes on the reactive controller: the body is joined with a cap, so a body over
+// the limit is 413, never reaches the service and is not read to the end.
+class ReactiveTokenIntrospectionControllerTest {
+
+    private static final int MAX_BODY_BYTES = 16;
+
+    private final TokenIntrospectionService introspectionService = mock(TokenIntrospectionService.class);
+    private final ReactiveTokenIntrospectionController controller =
+            new ReactiveTokenIntrospectionController(introspectionService, new ObjectMapper(), Schedulers.boundedElastic());
+
+    ReactiveTokenIntrospectionControllerTest() {
+        ReflectionTestUtils.setField(controller, "maxBatchSize", 1000);
+        ReflectionTestUtils.setField(controller, "maxBodyBytes", MAX_BODY_BYTES);
+        when(introspectionService.introspect(anyList())).thenAnswer(call -> {
+            List<String> tokens = call.getArgument(0);
+            TokenIntrospection[] results = new TokenIntrospection[tokens.size()];
+            Arrays.fill(results, TokenIntrospection.INACTIVE);
+            return results;
+        });
+    }
+
+    @Test
+    void acceptsBodyAtTheLimitInSeveralBuffers() {
+        MockServerHttpRequest request = MockServerHttpRequest.post("/introspect")
+                .body(Flux.just(buffer("a234567890"), buffer("\nb2345")));
+        assertEquals("{\"active\":false}\n{\"active\":false}\n",
+                new String(controller.introspectNdjson(request).block().getBody(), StandardCharsets.UTF_8));
+        verify(introspectionService).introspect(List.of("a234567890", "b2345"));
+    }
+
+    @Test
+    void rejectsDeclaredContentLength() {
+        MockServerHttpRequest request = MockServerHttpRequest.post("/introspect")
+                .contentLength(MAX_BODY_BYTES + 1)
+                .body(Flux.just(buffer("a234567890\nb23456")));
+        assertTooLarge(() -> controller.introspectNdjson(request).block());
+        verifyNoInteractions(introspectionService);
+    }
+
+    @Test
+    void rejectsStreamedBodyWithoutReadingItAll() {
+//        No Content-Length: the join stops at the buffer that crosses the limit.
+        AtomicInteger emitted = new AtomicInteger();
+        Flux<DataBuffer> body = Flux.range(0, 100)
+                .map(i -> buffer("12345678"))
+                .doOnNext(b -> emitted.incrementAndGet());
+        MockServerHttpRequest request = MockServerHttpRequest.post("/introspect").body(body);
+        assertTooLarge(() -> controller.introspectBinary(request).block());
+        assertTrue(emitted.get() < 100, "read " + emitted.get() + " buffers");
+        verifyNoInteractions(introspectionService);
+    }
+
+    private static DataBuffer buffer(String value) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertTooLarge(Runnable call) {
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, assertThrows(ResponseStatusException.class, call::run).getStatusCode());
+    }
+}
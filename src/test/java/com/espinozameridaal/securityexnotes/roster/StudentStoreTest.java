@@ -0,0 +1,311 @@
+package com.espinozameridaal.securityexnotes.roster;
+
+import com.espinozameridaal.securityexnotes.model.Student;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+//StudentStore queries, loads and parsers, plus the hash tables under it (IdIndex, NameTable).
+//
+//parallel-threshold is 4 here, so every query over more than 4 students is really split into
+// fork-join tasks and the partial results (heaps, counts, min/max) go through the merge code.
+class StudentStoreTest {
+
+    private final StudentStore store = new StudentStore();
+
+    @BeforeEach
+    void start() {
+        ReflectionTestUtils.setField(store, "parallelThreshold", 4);
+        ReflectionTestUtils.setField(store, "parallelism", 4);
+        store.start();
+    }
+
+    @AfterEach
+    void stop() {
+        store.stop();
+    }
+
+    @Test
+    void percentilesUseNearestRank() {
+//        Ten students: the p-th percentile is the ceil(p / 100 * 10)-th smallest mark.
+        load(false, 1, 10, 2, 20, 3, 30, 4, 40, 5, 50, 6, 60, 7, 70, 8, 80, 9, 90, 10, 100);
+        assertArrayEquals(new int[]{10, 10, 20, 50, 90, 100, 100},
+                store.percentiles(0, 10, 10.5, 50, 90, 99, 100));
+    }
+
+    @Test
+    void percentilesAreExactForWholePercentages() {
+//        Marks 1..100: the p-th percentile is p. p / 100 * n is off by one ulp for 7, 14, 28 and 55.
+        StudentBatch batch = new StudentBatch(100);
+        for (int mark = 1; mark <= 100; mark++) {
+            batch.add(mark, null, mark);
+        }
+        store.load(batch, false);
+        assertArrayEquals(new int[]{7, 14, 28, 55, 56}, store.percentiles(7, 14, 28, 55, 56));
+        for (int p = 1; p <= 100; p++) {
+            assertEquals(p, store.percentiles(p)[0], "p" + p);
+        }
+    }
+
+    @Test
+    void percentilesOfWideMarkRangesSort() {
+//        More than MAX_COUNTED_RANGE distinct values: the sorting path, which must agree with the counting one.
+        load(false, 1, -100_000, 2, 0, 3, 5, 4, 5, 5, 100_000);
+        assertArrayEquals(new int[]{-100_000, -100_000, 0, 5, 5, 100_000}, store.percentiles(0, 20, 21, 50, 80, 100));
+    }
+
+    @Test
+    void rejectsPercentilesOutsideTheRange() {
+        load(false, 1, 50);
+        assertThrows(IllegalArgumentException.class, () -> store.percentiles(-1));
+        assertThrows(IllegalArgumentException.class, () -> store.percentiles(100.5));
+        assertThrows(IllegalArgumentException.class, () -> store.percentiles(Double.NaN));
+    }
+
+    @Test
+    void topBreaksTiesByLowerId() {
+        load(false, 7, 80, 3, 90, 9, 80, 1, 70, 5, 80, 2, 90, 8, 60);
+        assertEquals(List.of(2, 3, 5, 7, 9), ids(store.top(5)));
+//        n larger than the roster returns everybody.
+        assertEquals(List.of(2, 3, 5, 7, 9, 1, 8), ids(store.top(100)));
+        assertThrows(IllegalArgumentException.class, () -> store.top(0));
+    }
+
+    @Test
+    void histogramBucketsAreAlignedToTheWidth() {
+        load(false, 1, -15, 2, -1, 3, 0, 4, 9, 5, 10, 6, 25);
+        GradeHistogram histogram = store.histogram(10);
+        assertEquals(6, histogram.count());
+        assertEquals(-15, histogram.min());
+        assertEquals(25, histogram.max());
+        assertEquals(List.of(
+                new GradeHistogram.Bucket(-20, -11, 1),
+                new GradeHistogram.Bucket(-10, -1, 1),
+                new GradeHistogram.Bucket(0, 9, 2),
+                new GradeHistogram.Bucket(10, 19, 1),
+                new GradeHistogram.Bucket(20, 29, 1)), histogram.buckets());
+
+//        The first bucket starts at the multiple of the width at or below the minimum, also for negative marks.
+        assertEquals(List.of(
+                new GradeHistogram.Bucket(-41, -1, 2),
+                new GradeHistogram.Bucket(0, 40, 4)), store.histogram(41).buckets());
+    }
+
+    @Test
+    void rejectsHistogramsWithTooManyBuckets() {
+        load(false, 1, 0, 2, StudentStore.MAX_BUCKETS);
+        assertThrows(IllegalArgumentException.class, () -> store.histogram(1));
+        assertEquals(StudentStore.MAX_BUCKETS / 2 + 1, store.histogram(2).buckets().size());
+        assertThrows(IllegalArgumentException.class, () -> store.histogram(0));
+    }
+
+    @Test
+    void emptyRosterQueriesThrowNoStudents() {
+        assertThrows(NoStudentsException.class, () -> store.percentiles(50));
+        assertThrows(NoStudentsException.class, () -> store.histogram(10));
+        assertEquals(List.of(), store.top(10));
+        assertNull(store.find(1));
+    }
+
+    @Test
+    void splitQueriesMatchASequentialScan() {
+        Random random = new Random(42);
+        List<Student> students = new ArrayList<>();
+        StudentBatch batch = new StudentBatch(1000);
+        for (int id = 0; id < 1000; id++) {
+            Student student = new Student(id, "Student " + id % 13, random.nextInt(201) - 100);
+            students.add(student);
+            batch.add(student.getId(), student.getName(), student.getMarks());
+        }
+        store.load(batch, false);
+
+        List<Student> expectedTop = students.stream()
+                .sorted(Comparator.comparingInt(Student::getMarks).reversed().thenComparingInt(Student::getId))
+                .limit(25).toList();
+        assertEquals(ids(expectedTop), ids(store.top(25)));
+
+        int[] sorted = students.stream().mapToInt(Student::getMarks).sorted().toArray();
+//        Reference ranks in integer arithmetic: rank(p) = max(1, ceil(p * n / 100)).
+        int[] percentiles = {0, 7, 25, 50, 55, 99, 100};
+        int[] expectedPercentiles = new int[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = Math.max(1, (percentiles[i] * sorted.length + 99) / 100);
+            expectedPercentiles[i] = sorted[rank - 1];
+        }
+        assertArrayEquals(expectedPercentiles, store.percentiles(Arrays.stream(percentiles).asDoubleStream().toArray()));
+
+        int total = 0;
+        for (GradeHistogram.Bucket bucket : store.histogram(7).buckets()) {
+            long from = bucket.from();
+            long expected = students.stream().filter(s -> s.getMarks() >= from && s.getMarks() <= bucket.to()).count();
+            assertEquals(expected, bucket.count(), "bucket " + from);
+            total += bucket.count();
+        }
+        assertEquals(1000, total);
+    }
+
+    @Test
+    void loadUpsertsByIdAndReplaceDropsTheRoster() {
+        assertEquals(3, load(false, 1, 50, 2, 60, 3, 70));
+//        Id 2 is updated, id 4 is new; within one batch the last occurrence of an id wins.
+        StudentBatch batch = new StudentBatch(10);
+        batch.add(2, "Bob", 61);
+        batch.add(4, "Dan", 80);
+        batch.add(4, null, 81);
+        assertEquals(4, store.load(batch, false));
+        assertEquals("Bob", store.find(2).getName());
+        assertEquals(61, store.find(2).getMarks());
+        assertEquals(81, store.find(4).getMarks());
+        assertNull(store.find(4).getName());
+        assertEquals(List.of(4, 3, 2, 1), ids(store.top(10)));
+
+        assertEquals(2, load(true, 9, 10, 3, 20));
+        assertNull(store.find(1));
+        assertEquals(20, store.find(3).getMarks());
+        assertEquals(List.of(3, 9), ids(store.top(10)));
+
+        store.clear();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void idIndexProbesAndRehashes() {
+//        Starts with 32 slots and doubles several times; extreme and negative ids included.
+        int[] ids = new int[5000];
+        for (int row = 0; row < ids.length; row++) {
+            ids[row] = row % 2 == 0 ? row * 31 : -row;
+        }
+        ids[1] = Integer.MIN_VALUE;
+        ids[3] = Integer.MAX_VALUE;
+        IdIndex index = new IdIndex(0);
+        for (int row = 0; row < 100; row++) {
+            index.put(row, ids);
+        }
+        IdIndex copy = index.copy();
+        for (int row = 100; row < ids.length; row++) {
+            copy.put(row, ids);
+        }
+
+        for (int row = 0; row < ids.length; row++) {
+            assertEquals(row, copy.get(ids[row], ids));
+            assertEquals(row < 100 ? row : -1, index.get(ids[row], ids));
+        }
+        assertEquals(-1, copy.get(7, ids));
+        assertEquals(-1, new IdIndex(0).get(0, ids));
+    }
+
+    @Test
+    void nameTableInternsAcrossRehashes() {
+        NameTable names = new NameTable(0);
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i, names.intern("name-" + i));
+        }
+        NameTable copy = names.copy();
+        assertEquals(3000, copy.intern("new"));
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i, names.intern(new String("name-" + i)));
+            assertEquals("name-" + i, names.get(i));
+        }
+        assertEquals(3000, names.size());
+        assertEquals(3001, copy.size());
+        assertEquals(-1, names.intern(null));
+        assertNull(names.get(-1));
+        assertEquals(32, NameTable.tableSize(0));
+        assertEquals(2048, NameTable.tableSize(1024));
+    }
+
+    @Test
+    void readsCsv() throws IOException {
+        StudentBatch batch = StudentBatch.readCsv(csv("""
+                ID,name,marks
+                1,Alice,91
+
+                2,"Smith, Bob",-5
+                3,,70
+                """), 10);
+        store.load(batch, false);
+        assertEquals(3, store.size());
+        assertEquals("Smith, Bob", store.find(2).getName());
+        assertEquals(-5, store.find(2).getMarks());
+        assertNull(store.find(3).getName());
+    }
+
+    @Test
+    void rejectsInvalidCsv() {
+        assertCsvError("Line 2: expected id,name,marks", "1,Alice,91\n2,Bob\n");
+        assertCsvError("Line 1: id and marks must be integers", "x,Alice,91\n");
+        assertCsvError("Line 1: id and marks must be integers", "1,Alice,9.5\n");
+        assertCsvError("At most 2 students per load", "1,a,1\n2,b,2\n3,c,3\n");
+    }
+
+    @Test
+    void readsJson() throws IOException {
+        StudentBatch batch = StudentBatch.readJson(json("""
+                [{"id":1,"name":"Alice","marks":91},
+                 {"marks":-3,"id":2,"extra":{"nested":[1,2]}},
+                 {"id":3,"name":null,"marks":70}]"""), 10);
+        store.load(batch, false);
+        assertEquals(3, store.size());
+        assertEquals("Alice", store.find(1).getName());
+        assertNull(store.find(2).getName());
+        assertEquals(-3, store.find(2).getMarks());
+        assertEquals(0, StudentBatch.readJson(json("[]"), 10).size());
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        assertJsonError("Expected a JSON array of students", "{\"id\":1,\"marks\":2}");
+        assertJsonError("Expected a JSON array of students", "[{\"id\":1,\"marks\":2}, 3]");
+        assertJsonError("Student #2 needs an id and marks", "[{\"id\":1,\"marks\":2},{\"id\":2}]");
+        assertJsonError("At most 2 students per load", "[{\"id\":1,\"marks\":2},{\"id\":2,\"marks\":3},{\"id\":3,\"marks\":4}]");
+//        Malformed JSON and numbers that do not fit an int.
+        assertThrows(IllegalArgumentException.class, () -> StudentBatch.readJson(json("[{\"id\":1,"), 2));
+        assertThrows(IllegalArgumentException.class, () -> StudentBatch.readJson(json("[{\"id\":1,\"marks\":3000000000}]"), 2));
+    }
+
+//    Loads (id, mark) pairs without names; returns the roster size.
+    private int load(boolean replace, int... idsAndMarks) {
+        StudentBatch batch = new StudentBatch(idsAndMarks.length / 2);
+        for (int i = 0; i < idsAndMarks.length; i += 2) {
+            batch.add(idsAndMarks[i], null, idsAndMarks[i + 1]);
+        }
+        return store.load(batch, replace);
+    }
+
+    private static List<Integer> ids(List<Student> students) {
+        return students.stream().map(Student::getId).toList();
+    }
+
+    private static BufferedReader csv(String body) {
+        return new BufferedReader(new StringReader(body));
+    }
+
+    private static JsonParser json(String body) throws IOException {
+        return new JsonFactory().createParser(body);
+    }
+
+    private static void assertCsvError(String message, String body) {
+        assertEquals(message, assertThrows(IllegalArgumentException.class, () -> StudentBatch.readCsv(csv(body), 2)).getMessage());
+    }
+
+    private static void assertJsonError(String message, String body) {
+        assertEquals(message, assertThrows(IllegalArgumentException.class, () -> StudentBatch.readJson(json(body), 2)).getMessage());
+    }
+}
@@ -0,0 +1,190 @@
+package com.espinozameridaal.securityexnotes.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+//Differential test: every token is checked by FastHs256Verifier and by jjwt, and they must agree.
+//
+//- fast path accepts  -> jjwt accepts too, with the same subject, iat and exp
+//- fast path rejects  -> jjwt rejects too
+//- fast path returns null (falls back) -> nothing to compare, JWTService would ask jjwt anyway
+class FastHs256VerifierTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private final SecretKey key = Keys.hmacShaKeyFor(randomBytes(32, 1));
+    private final SecretKey otherKey = Keys.hmacShaKeyFor(randomBytes(32, 2));
+    private final JwtParser parser = Jwts.parser().verifyWith(key).build();
+    private final FastHs256Verifier verifier = new FastHs256Verifier(key);
+
+    private int fastAccepted;
+    private int fastRejected;
+
+    @Test
+    void agreesOnTokensLikeGenerateToken() {
+        for (String username : List.of("bob", "", "a b", "user@example.com", "x".repeat(300),
+                "ünïcødé", "quote\"inside", "back\\slash", "tab\tinside")) {
+            assertAgrees(token(username, key, System.currentTimeMillis(), System.currentTimeMillis() + 30 * HOUR));
+        }
+        // "" is dropped from the claims by jjwt (no sub), so only the 4 other ASCII names take the fast path.
+        assertEquals(4, fastAccepted, "plain ASCII usernames should take the fast path");
+    }
+
+    @Test
+    void agreesOnExpiredAndForeignTokens() {
+        long now = System.currentTimeMillis();
+        assertAgrees(token("bob", key, now - 2 * HOUR, now - HOUR));
+        assertAgrees(token("bob", otherKey, now, now + HOUR));
+        assertAgrees(token("bob", otherKey, now - 2 * HOUR, now - HOUR));
+        assertEquals(3, fastRejected);
+    }
+
+    @Test
+    void agreesOnEveryTamperedCharacter() {
+        String token = token("alice", key, System.currentTimeMillis(), System.currentTimeMillis() + HOUR);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.=+/ ";
+        Random random = new Random(42);
+        for (int i = 0; i < token.length(); i++) {
+            for (int n = 0; n < 4; n++) {
+                char replacement = alphabet.charAt(random.nextInt(alphabet.length()));
+                if (replacement != token.charAt(i)) {
+                    assertAgrees(token.substring(0, i) + replacement + token.substring(i + 1));
+                }
+            }
+            assertAgrees(token.substring(0, i));
+            assertAgrees(token.substring(0, i) + token.substring(i + 1));
+        }
+        assertAgrees(token + "=");
+        assertAgrees(token + ".");
+        assertAgrees(" " + token);
+    }
+
+    @Test
+    void agreesOnHandCraftedPayloads() {
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        List<String> payloads = new ArrayList<>(List.of(
+                "{\"sub\":\"bob\",\"iat\":1,\"exp\":" + exp + "}",
+                " { \"exp\" : " + exp + " , \"sub\" : \"bob\" } ",
+                "{\"sub\":\"bob\",\"exp\":" + exp + "}",
+                "{\"sub\":\"bob\"}",
+                "{\"exp\":" + exp + "}",
+                "{}",
+                "{\"sub\":\"bob\",\"exp\":" + exp + ",\"role\":\"ADMIN\"}",
+                "{\"sub\":\"bob\",\"sub\":\"eve\",\"exp\":" + exp + "}",
+                "{\"sub\":\"bob\",\"exp\":" + exp + ".5}",
+                "{\"sub\":\"bob\",\"exp\":1e12}",
+                "{\"sub\":\"bob\",\"exp\":-1}",
+                "{\"sub\":\"bob\",\"exp\":0" + exp + "}",
+                "{\"sub\":\"bob\",\"exp\":\"" + exp + "\"}",
+                "{\"sub\":\"b\\u006fb\",\"exp\":" + exp + "}",
+                "{\"sub\":{\"nested\":1},\"exp\":" + exp + "}",
+                "{\"sub\":null,\"exp\":" + exp + "}",
+                "{\"sub\":\"\",\"exp\":" + exp + "}",
+                "{\"sub\":\"   \",\"exp\":" + exp + "}",
+                "{\"sub\":\" bob \",\"exp\":" + exp + "}",
+                "{\"sub\":\"bob\",\"exp\":" + exp + "}trailing",
+                "{\"sub\":\"bob\",\"exp\":" + exp + ",}",
+                "[\"sub\",\"bob\"]",
+                "not json"));
+        for (String payload : payloads) {
+            assertAgrees(signed(FastHs256Verifier.HEADER, payload));
+            assertAgrees(signed(base64Url("{\"typ\":\"JWT\",\"alg\":\"HS256\"}"), payload));
+        }
+    }
+
+    @Test
+    void jwtServiceVerifiesItsOwnTokens() {
+        JWTService jwtService = new JWTService();
+        String token = jwtService.generateToken("carol");
+        VerifiedToken verified = jwtService.verify(token);
+        assertEquals("carol", verified.subject());
+        assertTrue(verified.expiresAtMillis() > System.currentTimeMillis());
+        assertEquals("carol", jwtService.extractUserName(token));
+    }
+
+    private void assertAgrees(String token) {
+        long now = System.currentTimeMillis();
+        VerifiedToken fast;
+        try {
+            fast = verifier.verify(token, now);
+        } catch (JwtException e) {
+            fastRejected++;
+            try {
+                parser.parseSignedClaims(token);
+                fail("fast path rejected a token jjwt accepts: " + token + " (" + e + ")");
+            } catch (RuntimeException expected) {
+                return;
+            }
+            return;
+        }
+        if (fast == null) {
+            return;
+        }
+        fastAccepted++;
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (RuntimeException e) {
+            fail("fast path accepted a token jjwt rejects: " + token + " (" + e + ")");
+            return;
+        }
+        assertNotNull(claims);
+        assertEquals(claims.getSubject(), fast.subject(), token);
+        assertEquals(claims.getExpiration().getTime(), fast.expiresAtMillis(), token);
+        assertEquals(claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime(), fast.issuedAtMillis(), token);
+    }
+
+//    Built exactly like JWTService.generateToken.
+    @SuppressWarnings("deprecation")
+    private static String token(String username, SecretKey signingKey, long issuedAt, long expiration) {
+        return Jwts.builder()
+                .setClaims(new HashMap<>())
+                .setSubject(username)
+                .setIssuedAt(new Date(issuedAt))
+                .setExpiration(new Date(expiration))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private String signed(String header, String payload) {
+        String signingInput = header + "." + base64Url(payload);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            byte[] signature = mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String base64Url(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
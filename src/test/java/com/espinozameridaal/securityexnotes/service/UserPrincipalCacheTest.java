@@ -0,0 +1,128 @@
+package com.espinozameridaal.securityexnotes.service;
+
+import com.espinozameridaal.securityexnotes.model.Role;
+import com.espinozameridaal.securityexnotes.model.UserPrincipal;
+import com.espinozameridaal.securityexnotes.model.Users;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//UserPrincipalCache with a mocked MyUserDetailsService: hits, TTL expiry, eviction when full and the
+// read-only shared token. verify(..., times(n)) counts the database loads.
+class UserPrincipalCacheTest {
+
+    private final MyUserDetailsService userDetailsService = mock(MyUserDetailsService.class);
+
+    UserPrincipalCacheTest() {
+        when(userDetailsService.loadUserByUsername(anyString())).thenAnswer(call -> {
+            String username = call.getArgument(0);
+            if (username.startsWith("unknown")) {
+                throw new UsernameNotFoundException("user not found");
+            }
+            Users user = new Users();
+            user.setUsername(username);
+            user.setPassword("hash");
+            user.setRoles(Role.mask(Role.USER, Role.ADMIN));
+            return new UserPrincipal(user);
+        });
+    }
+
+    @Test
+    void sharesOnePrincipalAndTokenUntilExpiry() throws InterruptedException {
+        UserPrincipalCache cache = new UserPrincipalCache(userDetailsService, 200, 10);
+        assertNull(cache.getCachedAuthentication("bob"));
+
+        UserPrincipal principal = cache.getPrincipal("bob");
+        Authentication authentication = cache.getAuthentication("bob");
+        assertSame(principal, authentication.getPrincipal());
+        assertSame(authentication, cache.getAuthentication("bob"));
+        assertSame(authentication, cache.getCachedAuthentication("bob"));
+        assertTrue(authentication.isAuthenticated());
+        assertEquals(principal.getAuthorities(), authentication.getAuthorities());
+        verify(userDetailsService, times(1)).loadUserByUsername("bob");
+
+        Thread.sleep(250);
+        assertNull(cache.getCachedAuthentication("bob"));
+        cache.getPrincipal("bob");
+        verify(userDetailsService, times(2)).loadUserByUsername("bob");
+
+        cache.evict("bob");
+        cache.getPrincipal("bob");
+        verify(userDetailsService, times(3)).loadUserByUsername("bob");
+    }
+
+    @Test
+    void doesNotCacheUnknownUsers() {
+        UserPrincipalCache cache = new UserPrincipalCache(userDetailsService, 60_000, 10);
+        assertThrows(UsernameNotFoundException.class, () -> cache.getPrincipal("unknown"));
+        assertThrows(UsernameNotFoundException.class, () -> cache.getAuthentication("unknown"));
+        verify(userDetailsService, times(2)).loadUserByUsername("unknown");
+    }
+
+    @Test
+    void fullCacheDropsExpiredEntriesFirst() throws InterruptedException {
+        UserPrincipalCache cache = new UserPrincipalCache(userDetailsService, 200, 3);
+        cache.getPrincipal("a");
+        cache.getPrincipal("b");
+        Thread.sleep(250);
+        cache.getPrincipal("c");
+//        Full: a and b have expired and go, c stays.
+        cache.getPrincipal("d");
+
+        cache.getPrincipal("c");
+        cache.getPrincipal("d");
+        verify(userDetailsService, times(1)).loadUserByUsername("c");
+        verify(userDetailsService, times(1)).loadUserByUsername("d");
+        assertNull(cache.getCachedAuthentication("a"));
+    }
+
+    @Test
+    void fullCacheOfFreshEntriesDropsTheOldestTenth() throws InterruptedException {
+        UserPrincipalCache cache = new UserPrincipalCache(userDetailsService, 60_000, 20);
+        for (int i = 0; i < 20; i++) {
+            cache.getPrincipal("user-" + i);
+//            Distinct load times, so "oldest" is well defined.
+            Thread.sleep(1);
+        }
+        cache.getPrincipal("user-20");
+
+//        user-0 and user-1 were evicted, everybody else is still cached.
+        assertNull(cache.getCachedAuthentication("user-0"));
+        assertNull(cache.getCachedAuthentication("user-1"));
+        for (int i = 2; i <= 20; i++) {
+            cache.getPrincipal("user-" + i);
+            verify(userDetailsService, times(1)).loadUserByUsername("user-" + i);
+        }
+    }
+
+    @Test
+    void sharedTokenIsReadOnly() {
+        UserPrincipalCache cache = new UserPrincipalCache(userDetailsService, 60_000, 10);
+        Authentication authentication = cache.getAuthentication("bob");
+        UserPrincipalCache.SharedAuthenticationToken token = (UserPrincipalCache.SharedAuthenticationToken) authentication;
+
+        assertThrows(UnsupportedOperationException.class, () -> token.setDetails("192.168.0.1"));
+        assertThrows(UnsupportedOperationException.class, () -> token.setAuthenticated(false));
+        token.eraseCredentials();
+        assertNull(token.getDetails());
+        assertTrue(token.isAuthenticated());
+        assertEquals("bob", ((UserPrincipal) token.getPrincipal()).getUsername());
+        assertEquals("hash", ((UserPrincipal) token.getPrincipal()).getPassword());
+    }
+
+    @Test
+    void rejectsMaxSizeBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new UserPrincipalCache(userDetailsService, 60_000, 0));
+    }
+}